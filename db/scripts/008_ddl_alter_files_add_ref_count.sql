@@ -0,0 +1,2 @@
+alter table files add column ref_count int not null default 1;
+create index files_checksum_index on files (checksum);
@@ -0,0 +1,4 @@
+alter table files add column content_type varchar;
+alter table files add column width int not null default 0;
+alter table files add column height int not null default 0;
+alter table files add column creation_date timestamp;
@@ -0,0 +1,144 @@
+package ru.job4j.dreamjob.cache;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Кеш, ограниченный суммарным весом значений (например, числом байт).
+ * Что вытеснять при переполнении, решает подключаемая {@link EvictionPolicy}.
+ * Если задан срок жизни, устаревшее значение не отдаётся и удаляется при обращении к нему.
+ */
+@ThreadSafe
+public class BoundedCache<K, V> {
+    private final long maxWeight;
+
+    private final ToLongFunction<V> weigher;
+
+    private final EvictionPolicy<K> policy;
+
+    private final long timeToLiveNanos;
+
+    private final LongSupplier ticker;
+
+    private final Map<K, Entry<V>> entries = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private long weight;
+
+    public BoundedCache(long maxWeight, ToLongFunction<V> weigher, EvictionPolicy<K> policy) {
+        this(maxWeight, weigher, policy, null, System::nanoTime);
+    }
+
+    /* timeToLive = null - значения не устаревают; ticker - источник времени в наносекундах */
+    public BoundedCache(long maxWeight, ToLongFunction<V> weigher, EvictionPolicy<K> policy,
+                        Duration timeToLive, LongSupplier ticker) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.policy = policy;
+        this.timeToLiveNanos = timeToLive == null ? Long.MAX_VALUE : timeToLive.toNanos();
+        this.ticker = ticker;
+    }
+
+    public synchronized V get(K key) {
+        policy.recordAccess(key);
+        var entry = entries.get(key);
+        if (entry != null && ticker.getAsLong() - entry.writtenAt() >= timeToLiveNanos) {
+            remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    /*
+     * Возвращает false, если значение не поместилось или политика не допустила его в кеш.
+     * Жертвы выбираются и проверяются до изменений, поэтому отказ не трогает ни одну запись,
+     * в том числе прежнее значение по этому ключу.
+     */
+    public synchronized boolean put(K key, V value) {
+        var valueWeight = weigher.applyAsLong(value);
+        var victims = selectVictims(key, valueWeight);
+        if (victims == null) {
+            return false;
+        }
+        remove(key);
+        for (var victim : victims) {
+            remove(victim);
+            evictions.increment();
+        }
+        entries.put(key, new Entry<>(value, ticker.getAsLong()));
+        weight += valueWeight;
+        policy.recordInsertion(key);
+        return true;
+    }
+
+    /* примет ли кеш значение такого веса; позволяет не готовить значение, от которого откажутся */
+    public synchronized boolean wouldAdmit(K key, long valueWeight) {
+        return selectVictims(key, valueWeight) != null;
+    }
+
+    /* записи, которые придётся вытеснить ради ключа, или null, если значение не будет принято */
+    private List<K> selectVictims(K key, long valueWeight) {
+        if (valueWeight > maxWeight) {
+            return null;
+        }
+        var existing = entries.get(key);
+        var excess = weight - (existing == null ? 0 : weigher.applyAsLong(existing.value())) + valueWeight - maxWeight;
+        var victims = new ArrayList<K>();
+        for (var iterator = policy.victims(); excess > 0 && iterator.hasNext();) {
+            var victim = iterator.next();
+            if (victim.equals(key)) {
+                continue;
+            }
+            if (!policy.admit(key, victim)) {
+                return null;
+            }
+            victims.add(victim);
+            excess -= weigher.applyAsLong(entries.get(victim).value());
+        }
+        return victims;
+    }
+
+    public synchronized void invalidate(K key) {
+        remove(key);
+    }
+
+    public synchronized void invalidateIf(Predicate<K> condition) {
+        entries.keySet().stream()
+                .filter(condition)
+                .toList()
+                .forEach(this::remove);
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), weight, maxWeight);
+    }
+
+    private void remove(K key) {
+        var entry = entries.remove(key);
+        if (entry != null) {
+            weight -= weigher.applyAsLong(entry.value());
+            policy.recordRemoval(key);
+        }
+    }
+
+    private record Entry<V>(V value, long writtenAt) {
+    }
+}
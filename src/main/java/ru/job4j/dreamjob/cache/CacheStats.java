@@ -0,0 +1,11 @@
+package ru.job4j.dreamjob.cache;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record CacheStats(long hits, long misses, long evictions, long size, long weight, long maxWeight) {
+    @JsonProperty
+    public double hitRate() {
+        var requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.job4j.dreamjob.cache;
+
+import java.util.Iterator;
+
+/**
+ * Политика вытеснения для {@link BoundedCache}. Все методы вызываются под блокировкой кеша.
+ */
+public interface EvictionPolicy<K> {
+    /* вызывается при каждом обращении к ключу, в том числе при промахе */
+    void recordAccess(K key);
+
+    void recordInsertion(K key);
+
+    void recordRemoval(K key);
+
+    /* ключи в порядке вытеснения; обход не меняет состояние политики */
+    Iterator<K> victims();
+
+    /* решает, стоит ли вытеснять victim ради нового ключа */
+    default boolean admit(K candidate, K victim) {
+        return true;
+    }
+
+    static <K> EvictionPolicy<K> of(String name, int expectedEntries) {
+        return switch (name.toLowerCase()) {
+            case "lru" -> new LruEvictionPolicy<>();
+            case "tinylfu" -> new TinyLfuEvictionPolicy<>(expectedEntries);
+            default -> throw new IllegalArgumentException("Unknown eviction policy: " + name);
+        };
+    }
+}
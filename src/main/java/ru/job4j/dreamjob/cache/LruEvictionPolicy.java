@@ -0,0 +1,28 @@
+package ru.job4j.dreamjob.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+public class LruEvictionPolicy<K> implements EvictionPolicy<K> {
+    private final LinkedHashMap<K, Boolean> order = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Override
+    public void recordAccess(K key) {
+        order.get(key);
+    }
+
+    @Override
+    public void recordInsertion(K key) {
+        order.put(key, Boolean.TRUE);
+    }
+
+    @Override
+    public void recordRemoval(K key) {
+        order.remove(key);
+    }
+
+    @Override
+    public Iterator<K> victims() {
+        return order.keySet().iterator();
+    }
+}
@@ -0,0 +1,63 @@
+package ru.job4j.dreamjob.cache;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Значение берётся из кеша, а при промахе - из источника и запоминается.
+ * Изменяемые объекты копируются и при записи в кеш, и при выдаче, чтобы вызывающий
+ * не мог поменять закешированное.
+ *
+ * Источник читается без блокировки, поэтому запись могла произойти, пока значение загружалось.
+ * Каждое {@link #invalidate} увеличивает поколение, и загруженное значение кладётся в кеш,
+ * только если поколение не сменилось: иначе оно могло устареть и было бы отдаваться до истечения срока.
+ */
+@ThreadSafe
+public class ReadThroughCache<K, V> {
+    private final BoundedCache<K, V> cache;
+
+    private final UnaryOperator<V> copier;
+
+    private final Object lock = new Object();
+
+    private long generation;
+
+    public ReadThroughCache(BoundedCache<K, V> cache, UnaryOperator<V> copier) {
+        this.cache = cache;
+        this.copier = copier;
+    }
+
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        var cached = cache.get(key);
+        if (cached != null) {
+            return Optional.of(copier.apply(cached));
+        }
+        long loadedGeneration;
+        synchronized (lock) {
+            loadedGeneration = generation;
+        }
+        var loaded = loader.apply(key);
+        loaded.ifPresent(value -> {
+            synchronized (lock) {
+                if (generation == loadedGeneration) {
+                    cache.put(key, copier.apply(value));
+                }
+            }
+        });
+        return loaded;
+    }
+
+    /* вызывается после изменения источника */
+    public void invalidate(K key) {
+        synchronized (lock) {
+            generation++;
+            cache.invalidate(key);
+        }
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,96 @@
+package ru.job4j.dreamjob.cache;
+
+import java.util.Iterator;
+
+/**
+ * LRU-порядок с частотным фильтром допуска (TinyLFU): новый ключ вытесняет жертву,
+ * только если обращались к нему чаще. Частоты хранятся приближённо в count-min sketch
+ * и периодически делятся пополам, чтобы забывать старую популярность.
+ */
+public class TinyLfuEvictionPolicy<K> implements EvictionPolicy<K> {
+    private static final int DEPTH = 4;
+
+    private static final int MAX_COUNT = 15;
+
+    private static final int[] SEEDS = {0x97cb3127, 0xb9f72c45, 0x6f2a5d13, 0xd3a8e6f1};
+
+    private final LruEvictionPolicy<K> recency = new LruEvictionPolicy<>();
+
+    private final int[][] counters;
+
+    private final int mask;
+
+    private final int sampleSize;
+
+    private int additions;
+
+    public TinyLfuEvictionPolicy(int expectedEntries) {
+        var width = Integer.highestOneBit(Math.max(16, expectedEntries - 1) * 2);
+        this.counters = new int[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = width * 10;
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        increment(key);
+        recency.recordAccess(key);
+    }
+
+    @Override
+    public void recordInsertion(K key) {
+        recency.recordInsertion(key);
+    }
+
+    @Override
+    public void recordRemoval(K key) {
+        recency.recordRemoval(key);
+    }
+
+    @Override
+    public Iterator<K> victims() {
+        return recency.victims();
+    }
+
+    @Override
+    public boolean admit(K candidate, K victim) {
+        return frequency(candidate) > frequency(victim);
+    }
+
+    private void increment(K key) {
+        var hash = key.hashCode();
+        for (int i = 0; i < DEPTH; i++) {
+            var row = counters[i];
+            var index = index(hash, i);
+            if (row[index] < MAX_COUNT) {
+                row[index]++;
+            }
+        }
+        if (++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private int frequency(K key) {
+        var hash = key.hashCode();
+        var result = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            result = Math.min(result, counters[i][index(hash, i)]);
+        }
+        return result;
+    }
+
+    private int index(int hash, int row) {
+        var spread = (hash ^ SEEDS[row]) * 0x9e3779b9;
+        return (spread ^ (spread >>> 16)) & mask;
+    }
+
+    private void reset() {
+        for (var row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        additions /= 2;
+    }
+}
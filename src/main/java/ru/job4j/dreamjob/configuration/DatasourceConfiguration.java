@@ -1,7 +1,7 @@
 package ru.job4j.dreamjob.configuration;
 
-import org.apache.commons.dbcp2.BasicDataSource;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.sql2o.Sql2o;
@@ -13,25 +13,65 @@ import org.sql2o.quirks.Quirks;
 import javax.sql.DataSource;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Configuration
+@EnableConfigurationProperties(PoolSettings.class)
 public class DatasourceConfiguration {
     @Bean
-    public DataSource connectionPool(@Value("${datasource.url}") String url,
-                                     @Value("${datasource.username}") String username,
-                                     @Value("${datasource.password}") String password) {
-        return new BasicDataSource() {
-            {
-                setUrl(url);
-                setUsername(username);
-                setPassword(password);
-            }
-        };
+    public InstrumentedDataSource dataSource(@Value("${datasource.url}") String url,
+                                             @Value("${datasource.username}") String username,
+                                             @Value("${datasource.password}") String password,
+                                             PoolSettings poolSettings) {
+        return connectionPool(url, username, password, poolSettings);
+    }
+
+    public InstrumentedDataSource connectionPool(String url, String username, String password) {
+        return connectionPool(url, username, password, PoolSettings.DEFAULT);
+    }
+
+    public InstrumentedDataSource connectionPool(String url, String username, String password, PoolSettings settings) {
+        var dataSource = new InstrumentedDataSource();
+        dataSource.setUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setInitialSize(settings.initialSize());
+        dataSource.setMaxTotal(settings.maxTotal());
+        dataSource.setMinIdle(settings.minIdle());
+        dataSource.setMaxIdle(settings.maxIdle());
+        dataSource.setMaxWaitMillis(settings.maxWait().toMillis());
+        dataSource.setTestOnBorrow(settings.testOnBorrow());
+        dataSource.setTestWhileIdle(settings.testWhileIdle());
+        dataSource.setValidationQueryTimeout((int) settings.validationTimeout().toSeconds());
+        dataSource.setTimeBetweenEvictionRunsMillis(settings.evictionInterval().toMillis());
+        dataSource.setMinEvictableIdleTimeMillis(settings.minEvictableIdleTime().toMillis());
+        dataSource.setNumTestsPerEvictionRun(settings.numTestsPerEvictionRun());
+        dataSource.setMaxConnLifetimeMillis(settings.maxConnectionLifetime().toMillis());
+        dataSource.setPoolPreparedStatements(settings.poolPreparedStatements());
+        dataSource.setMaxOpenPreparedStatements(settings.maxOpenPreparedStatements());
+        return dataSource;
+    }
+
+    /* реплики берут учётные данные и настройки пула у основной базы */
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(InstrumentedDataSource dataSource,
+                                                      @Value("${datasource.replica.urls}") List<String> replicaUrls,
+                                                      @Value("${datasource.username}") String username,
+                                                      @Value("${datasource.password}") String password,
+                                                      PoolSettings poolSettings,
+                                                      @Value("${datasource.replica.health-check-interval-seconds}")
+                                                      long healthCheckIntervalSeconds) {
+        var replicas = replicaUrls.stream()
+                .map(String::strip)
+                .filter(url -> !url.isEmpty())
+                .map(url -> connectionPool(url, username, password, poolSettings))
+                .toList();
+        return new ReplicaRoutingDataSource(dataSource, replicas, healthCheckIntervalSeconds);
     }
 
     @Bean
-    public Sql2o databaseClient(DataSource dataSource) {
-        return new Sql2o(dataSource, createConverters());
+    public Sql2o databaseClient(DataSource routingDataSource) {
+        return new Sql2o(routingDataSource, createConverters());
     }
 
     private Quirks createConverters() {
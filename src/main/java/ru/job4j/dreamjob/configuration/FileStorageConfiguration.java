@@ -0,0 +1,36 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.job4j.dreamjob.storage.FileLayout;
+import ru.job4j.dreamjob.storage.FileStorage;
+import ru.job4j.dreamjob.storage.LocalFileStorage;
+import ru.job4j.dreamjob.storage.PackFileStorage;
+import ru.job4j.dreamjob.storage.RoutingFileStorage;
+
+import java.nio.file.Path;
+
+@Configuration
+public class FileStorageConfiguration {
+    /*
+     * Без file.storage.pack.enabled каждый файл по-прежнему хранится отдельно.
+     * LocalFileStorage не объявляется отдельным бином, чтобы FileStorage внедрялся однозначно.
+     */
+    @Bean
+    public FileStorage fileStorage(FileLayout fileLayout,
+                                   @Value("${file.storage.pack.enabled}") boolean packEnabled,
+                                   @Value("${file.storage.pack.directory}") String packDirectory,
+                                   @Value("${file.storage.pack.max-blob-bytes}") int maxBlobBytes,
+                                   @Value("${file.storage.pack.segment-bytes}") long segmentBytes,
+                                   @Value("${file.storage.pack.compaction-threshold}") double compactionThreshold,
+                                   @Value("${file.storage.pack.compaction-interval-seconds}") long compactionInterval) {
+        var localFileStorage = new LocalFileStorage(fileLayout);
+        if (!packEnabled) {
+            return localFileStorage;
+        }
+        var packFileStorage = new PackFileStorage(Path.of(packDirectory), segmentBytes, maxBlobBytes,
+                compactionThreshold, compactionInterval);
+        return new RoutingFileStorage(localFileStorage, packFileStorage, maxBlobBytes);
+    }
+}
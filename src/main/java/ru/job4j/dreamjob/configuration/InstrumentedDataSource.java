@@ -0,0 +1,75 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import ru.job4j.dreamjob.dto.PoolStats;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пул DBCP, который считает, сколько запросы ждут соединение. Время ожидания раскладывается
+ * по интервалам гистограммы; ожидание дольше maxWait отдельно считается таймаутом.
+ */
+@ThreadSafe
+public class InstrumentedDataSource extends BasicDataSource {
+    private static final long[] BUCKET_BOUNDS_MILLIS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    public InstrumentedDataSource() {
+        for (var i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        var start = System.nanoTime();
+        try {
+            var connection = super.getConnection();
+            recordWait(System.nanoTime() - start);
+            return connection;
+        } catch (SQLException e) {
+            if (e.getCause() instanceof NoSuchElementException) {
+                timeouts.increment();
+            } else {
+                failures.increment();
+            }
+            throw e;
+        }
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.add(nanos);
+        var millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        var bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MILLIS.length && millis >= BUCKET_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+    }
+
+    public PoolStats stats() {
+        var histogram = new LinkedHashMap<String, Long>();
+        var borrowed = 0L;
+        for (var i = 0; i < buckets.length; i++) {
+            var count = buckets[i].sum();
+            histogram.put(i < BUCKET_BOUNDS_MILLIS.length ? "<" + BUCKET_BOUNDS_MILLIS[i] : "inf", count);
+            borrowed += count;
+        }
+        var meanWaitMillis = borrowed == 0 ? 0 : totalWaitNanos.sum() / 1e6 / borrowed;
+        return new PoolStats(getNumActive(), getNumIdle(), getMaxTotal(), borrowed, timeouts.sum(), failures.sum(),
+                meanWaitMillis, histogram);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Параметры пула соединений, свойства datasource.pool.* в application.properties.
+ * maxWait - сколько запрос ждёт свободное соединение, прежде чем получить ошибку;
+ * validationTimeout - сколько ждать ответа при проверке соединения (Connection.isValid).
+ */
+@ConfigurationProperties("datasource.pool")
+public record PoolSettings(int initialSize,
+                           int maxTotal,
+                           int minIdle,
+                           int maxIdle,
+                           Duration maxWait,
+                           boolean testOnBorrow,
+                           boolean testWhileIdle,
+                           Duration validationTimeout,
+                           Duration evictionInterval,
+                           Duration minEvictableIdleTime,
+                           int numTestsPerEvictionRun,
+                           Duration maxConnectionLifetime,
+                           boolean poolPreparedStatements,
+                           int maxOpenPreparedStatements) {
+    /* те же значения, что в application.properties, - для пулов, создаваемых без Spring */
+    public static final PoolSettings DEFAULT = new PoolSettings(2, 20, 2, 10, Duration.ofSeconds(5),
+            true, true, Duration.ofSeconds(2), Duration.ofSeconds(30), Duration.ofMinutes(5), 3,
+            Duration.ofMinutes(30), true, 100);
+}
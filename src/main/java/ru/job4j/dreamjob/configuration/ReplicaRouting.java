@@ -0,0 +1,79 @@
+package ru.job4j.dreamjob.configuration;
+
+import java.util.function.Supplier;
+
+/**
+ * Решает, можно ли текущему потоку получить соединение с реплики.
+ * Реплика разрешена только внутри веб-запроса ({@link #begin}) и только чтению,
+ * открывающему соединение через {@link #read}. Любое другое соединение считается записью:
+ * после неё запрос до конца читает из основной базы, чтобы видеть свои изменения.
+ * Вне запроса (фоновые задачи) всё идёт в основную базу.
+ * Чтения внутри {@link #primary} тоже идут в основную базу, но записью не считаются.
+ */
+public final class ReplicaRouting {
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> READ = ThreadLocal.withInitial(() -> false);
+
+    private static final ThreadLocal<Boolean> PRIMARY = ThreadLocal.withInitial(() -> false);
+
+    private ReplicaRouting() {
+    }
+
+    /* pinnedToPrimary - недавно была запись в этой сессии, и реплики могут её ещё не знать */
+    public static void begin(boolean pinnedToPrimary) {
+        SCOPE.set(new Scope(pinnedToPrimary));
+    }
+
+    /* true - в запросе была запись */
+    public static boolean end() {
+        var scope = SCOPE.get();
+        SCOPE.remove();
+        return scope != null && scope.written;
+    }
+
+    /* open - открытие соединения (транзакции) Sql2o, через которое затем только читают */
+    public static <T> T read(Supplier<T> open) {
+        READ.set(true);
+        try {
+            return open.get();
+        } finally {
+            READ.set(false);
+        }
+    }
+
+    /*
+     * Для чтений, результат которых видят все сессии, например загрузки в общий кеш:
+     * отставшая реплика вернула бы строку до последнего изменения, и кеш раздавал бы её всем.
+     */
+    public static <T> T primary(Supplier<T> action) {
+        var previous = PRIMARY.get();
+        PRIMARY.set(true);
+        try {
+            return action.get();
+        } finally {
+            PRIMARY.set(previous);
+        }
+    }
+
+    static boolean isReplicaAllowed() {
+        var scope = SCOPE.get();
+        if (READ.get()) {
+            return scope != null && !scope.pinnedToPrimary && !scope.written && !PRIMARY.get();
+        }
+        if (scope != null) {
+            scope.written = true;
+        }
+        return false;
+    }
+
+    private static final class Scope {
+        private final boolean pinnedToPrimary;
+
+        private boolean written;
+
+        private Scope(boolean pinnedToPrimary) {
+            this.pinnedToPrimary = pinnedToPrimary;
+        }
+    }
+}
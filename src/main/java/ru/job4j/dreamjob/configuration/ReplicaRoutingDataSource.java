@@ -0,0 +1,159 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.job4j.dreamjob.dto.ReplicaStats;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Выдаёт соединения с реплик по кругу тем, кому это разрешает {@link ReplicaRouting}, остальным -
+ * с основной базы. Реплики периодически проверяются; реплика, которая не отвечает на проверку
+ * или не дала соединение, пропускается до следующей успешной проверки. Если здоровых реплик нет,
+ * читают из основной базы.
+ */
+@ThreadSafe
+public class ReplicaRoutingDataSource implements DataSource, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final ScheduledExecutorService healthChecker;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<InstrumentedDataSource> replicas,
+                                    long healthCheckIntervalSeconds) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "replica-health-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!replicas.isEmpty() && healthCheckIntervalSeconds > 0) {
+            healthChecker.scheduleWithFixedDelay(this::checkReplicas,
+                    healthCheckIntervalSeconds, healthCheckIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReplicaRouting.isReplicaAllowed()) {
+            for (var attempt = 0; attempt < replicas.size(); attempt++) {
+                var replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    var connection = replica.dataSource.getConnection();
+                    replica.reads.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.healthy = false;
+                    LOG.warn("Replica {} is unavailable, reading from the primary", replica.dataSource.getUrl(), e);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /* проверяет все реплики сразу, не дожидаясь расписания */
+    public void checkReplicas() {
+        for (var replica : replicas) {
+            var healthy = false;
+            try (var connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                LOG.debug("Replica {} health check failed", replica.dataSource.getUrl(), e);
+            }
+            if (replica.healthy != healthy) {
+                LOG.info("Replica {} is {}", replica.dataSource.getUrl(), healthy ? "healthy" : "unhealthy");
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    public List<ReplicaStats> stats() {
+        return replicas.stream()
+                .map(replica -> new ReplicaStats(replica.dataSource.getUrl(), replica.healthy, replica.reads.sum(),
+                        replica.dataSource.stats()))
+                .toList();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credentials are configured per pool");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    /* основная база - отдельный бин и закрывается сама */
+    @Override
+    public void close() throws SQLException {
+        healthChecker.shutdownNow();
+        for (var replica : replicas) {
+            replica.dataSource.close();
+        }
+    }
+
+    private static final class Replica {
+        private final InstrumentedDataSource dataSource;
+
+        private final LongAdder reads = new LongAdder();
+
+        private volatile boolean healthy = true;
+
+        private Replica(InstrumentedDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.job4j.dreamjob.cache.BoundedCache;
+import ru.job4j.dreamjob.cache.EvictionPolicy;
+import ru.job4j.dreamjob.cache.ReadThroughCache;
+import ru.job4j.dreamjob.repository.CachingCandidateRepository;
+import ru.job4j.dreamjob.repository.CachingVacancyRepository;
+import ru.job4j.dreamjob.repository.CandidateRepository;
+import ru.job4j.dreamjob.repository.Sql2oCandidateRepository;
+import ru.job4j.dreamjob.repository.Sql2oVacancyRepository;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import java.time.Duration;
+import java.util.function.UnaryOperator;
+
+@Configuration
+public class RepositoryConfiguration {
+    private final boolean cacheEnabled;
+
+    private final int maxEntries;
+
+    private final Duration timeToLive;
+
+    private final String policy;
+
+    public RepositoryConfiguration(@Value("${repository.cache.enabled}") boolean cacheEnabled,
+                                   @Value("${repository.cache.max-entries}") int maxEntries,
+                                   @Value("${repository.cache.ttl-seconds}") long ttlSeconds,
+                                   @Value("${repository.cache.policy}") String policy) {
+        this.cacheEnabled = cacheEnabled;
+        this.maxEntries = maxEntries;
+        this.timeToLive = Duration.ofSeconds(ttlSeconds);
+        this.policy = policy;
+    }
+
+    /* без repository.cache.enabled сервисы читают вакансии напрямую из БД */
+    @Bean
+    public VacancyRepository vacancyRepository(Sql2oVacancyRepository sql2oVacancyRepository) {
+        if (!cacheEnabled) {
+            return sql2oVacancyRepository;
+        }
+        return new CachingVacancyRepository(sql2oVacancyRepository, createCache(CachingVacancyRepository::copy));
+    }
+
+    @Bean
+    public CandidateRepository candidateRepository(Sql2oCandidateRepository sql2oCandidateRepository) {
+        if (!cacheEnabled) {
+            return sql2oCandidateRepository;
+        }
+        return new CachingCandidateRepository(sql2oCandidateRepository, createCache(CachingCandidateRepository::copy));
+    }
+
+    /* вес каждой записи - 1, так что max-entries ограничивает число записей */
+    private <V> ReadThroughCache<Integer, V> createCache(UnaryOperator<V> copier) {
+        var cache = new BoundedCache<Integer, V>(maxEntries, value -> 1, EvictionPolicy.of(policy, maxEntries),
+                timeToLive, System::nanoTime);
+        return new ReadThroughCache<>(cache, copier);
+    }
+}
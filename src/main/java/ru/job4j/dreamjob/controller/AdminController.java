@@ -0,0 +1,103 @@
+package ru.job4j.dreamjob.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.job4j.dreamjob.cache.CacheStats;
+import ru.job4j.dreamjob.configuration.InstrumentedDataSource;
+import ru.job4j.dreamjob.configuration.ReplicaRoutingDataSource;
+import ru.job4j.dreamjob.dto.PoolStats;
+import ru.job4j.dreamjob.dto.ReplicaStats;
+import ru.job4j.dreamjob.model.City;
+import ru.job4j.dreamjob.repository.CachingCandidateRepository;
+import ru.job4j.dreamjob.repository.CachingVacancyRepository;
+import ru.job4j.dreamjob.repository.CandidateRepository;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+import ru.job4j.dreamjob.service.CityService;
+import ru.job4j.dreamjob.service.FileCache;
+import ru.job4j.dreamjob.service.FileLayoutMigration;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+    private final FileCache fileCache;
+
+    private final FileLayoutMigration fileLayoutMigration;
+
+    private final VacancyRepository vacancyRepository;
+
+    private final CandidateRepository candidateRepository;
+
+    private final CityService cityService;
+
+    private final InstrumentedDataSource dataSource;
+
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    public AdminController(FileCache fileCache, FileLayoutMigration fileLayoutMigration,
+                           VacancyRepository vacancyRepository, CandidateRepository candidateRepository,
+                           CityService cityService, InstrumentedDataSource dataSource,
+                           ReplicaRoutingDataSource routingDataSource) {
+        this.fileCache = fileCache;
+        this.fileLayoutMigration = fileLayoutMigration;
+        this.vacancyRepository = vacancyRepository;
+        this.candidateRepository = candidateRepository;
+        this.cityService = cityService;
+        this.dataSource = dataSource;
+        this.routingDataSource = routingDataSource;
+    }
+
+    /* кеши вакансий и кандидатов показываются, только если включены */
+    @GetMapping("/caches")
+    public Map<String, CacheStats> getCacheStats() {
+        var result = new LinkedHashMap<String, CacheStats>();
+        result.put("files", fileCache.stats());
+        if (vacancyRepository instanceof CachingVacancyRepository caching) {
+            result.put("vacancies", caching.stats());
+        }
+        if (candidateRepository instanceof CachingCandidateRepository caching) {
+            result.put("candidates", caching.stats());
+        }
+        return result;
+    }
+
+    @GetMapping("/pool")
+    public PoolStats getPoolStats() {
+        return dataSource.stats();
+    }
+
+    @GetMapping("/replicas")
+    public List<ReplicaStats> getReplicaStats() {
+        return routingDataSource.stats();
+    }
+
+    @PostMapping("/replicas/check")
+    public List<ReplicaStats> checkReplicas() {
+        routingDataSource.checkReplicas();
+        return routingDataSource.stats();
+    }
+
+    @GetMapping("/files/migration")
+    public FileLayoutMigration.Progress getFileMigrationProgress() {
+        return fileLayoutMigration.getProgress();
+    }
+
+    @PostMapping("/files/migration")
+    public ResponseEntity<FileLayoutMigration.Progress> startFileMigration() {
+        var status = fileLayoutMigration.start() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(fileLayoutMigration.getProgress());
+    }
+
+    @PostMapping("/cities/refresh")
+    public Collection<City> refreshCities() {
+        return cityService.refresh();
+    }
+}
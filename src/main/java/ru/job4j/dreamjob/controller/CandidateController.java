@@ -5,24 +5,48 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.Page;
 import ru.job4j.dreamjob.model.Candidate;
 import ru.job4j.dreamjob.service.CandidateService;
+import ru.job4j.dreamjob.service.FileService;
 
 @Controller
 @RequestMapping("/candidates")
 public class CandidateController {
     private final CandidateService candidateService;
 
-    public CandidateController(CandidateService candidateService) {
+    private final FileService fileService;
+
+    public CandidateController(CandidateService candidateService, FileService fileService) {
         this.candidateService = candidateService;
+        this.fileService = fileService;
     }
 
     @GetMapping
-    public String getAll(Model model) {
-        model.addAttribute("candidates", candidateService.findAll());
+    public String getAll(Model model,
+                         @RequestParam(required = false) String after,
+                         @RequestParam(required = false) String before,
+                         @RequestParam(defaultValue = "20") int size) {
+        var page = candidateService.findPage(after, before, size);
+        model.addAttribute("candidates", page.items());
+        model.addAttribute("page", page);
+        model.addAttribute("size", Page.limit(size));
         return "candidates/list";
     }
 
+    @GetMapping("/search")
+    public String search(Model model,
+                         @RequestParam(defaultValue = "") String query,
+                         @RequestParam(defaultValue = "1") int page,
+                         @RequestParam(defaultValue = "20") int size) {
+        var result = candidateService.search(query, page, size);
+        model.addAttribute("candidates", result.items());
+        model.addAttribute("page", result);
+        model.addAttribute("query", query);
+        model.addAttribute("size", Page.limit(size));
+        return "candidates/search";
+    }
+
     @GetMapping("/create")
     public String getCreationPage() {
         return "candidates/create";
@@ -31,7 +55,7 @@ public class CandidateController {
     @PostMapping("/create")
     public String create(@ModelAttribute Candidate candidate, @RequestParam MultipartFile file, Model model) {
         try {
-            candidateService.save(candidate, new FileDto(file.getOriginalFilename(), file.getBytes()));
+            candidateService.save(candidate, new FileDto(file.getOriginalFilename(), file, file.getSize()));
             return "redirect:/candidates";
         } catch (Exception exception) {
             model.addAttribute("message", exception.getMessage());
@@ -46,6 +70,7 @@ public class CandidateController {
             return getError(model);
         }
         model.addAttribute("candidate", candidateOptional.get());
+        model.addAttribute("file", fileService.findById(candidateOptional.get().getFileId()).orElse(null));
         return "candidates/one";
     }
 
@@ -53,7 +78,7 @@ public class CandidateController {
     public String update(@ModelAttribute Candidate candidate, @RequestParam MultipartFile file, Model model) {
         boolean isUpdated;
         try {
-            isUpdated = candidateService.update(candidate, new FileDto(file.getOriginalFilename(), file.getBytes()));
+            isUpdated = candidateService.update(candidate, new FileDto(file.getOriginalFilename(), file, file.getSize()));
             if (!isUpdated) {
                 return getError(model);
             }
@@ -0,0 +1,39 @@
+package ru.job4j.dreamjob.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import ru.job4j.dreamjob.service.DataExporter;
+
+import java.io.IOException;
+
+/* выгрузка пишется прямо в ответ по мере чтения из БД */
+@Controller
+@RequestMapping("/export")
+public class ExportController {
+    private final DataExporter dataExporter;
+
+    public ExportController(DataExporter dataExporter) {
+        this.dataExporter = dataExporter;
+    }
+
+    @GetMapping("/vacancies.csv")
+    public void exportVacancies(HttpServletResponse response) throws IOException {
+        prepare(response, "text/csv;charset=UTF-8", "vacancies.csv");
+        dataExporter.exportVacancies(response.getOutputStream());
+    }
+
+    @GetMapping("/candidates.jsonl")
+    public void exportCandidates(HttpServletResponse response) throws IOException {
+        prepare(response, "application/x-ndjson;charset=UTF-8", "candidates.jsonl");
+        dataExporter.exportCandidates(response.getOutputStream());
+    }
+
+    private void prepare(HttpServletResponse response, String contentType, String fileName) {
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString());
+    }
+}
@@ -1,15 +1,37 @@
 package ru.job4j.dreamjob.controller;
 
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.job4j.dreamjob.dto.FileResourceDto;
 import ru.job4j.dreamjob.service.FileService;
 
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 @RestController
 @RequestMapping("/files")
 public class FileController {
+    /* файлы никогда не меняются на месте: новое содержимое всегда получает новый идентификатор */
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS)
+            .cachePrivate()
+            .immutable();
+
+    /* пока уменьшенная копия не готова, вместо неё отдаётся оригинал, и его нельзя кешировать навсегда */
+    private static final CacheControl FALLBACK_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     private final FileService fileService;
 
     public FileController(FileService fileService) {
@@ -17,11 +39,133 @@ public class FileController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getById(@PathVariable int id) {
-        var contentOptional = fileService.getFileById(id);
+    public ResponseEntity<?> getById(@PathVariable int id,
+                                     @RequestParam(defaultValue = "0") int size,
+                                     @RequestHeader HttpHeaders requestHeaders) {
+        var contentOptional = fileService.getFileMetadataById(id, size);
+        if (contentOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        var headers = getHeaders(contentOptional.get());
+        if (isNotModified(requestHeaders, headers)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+        /* содержимое читается в кеш только для полного ответа и только если кеш его примет */
+        var content = fileService.cacheContent(id, size, contentOptional.get());
+        return ResponseEntity.ok()
+                .headers(headers)
+                .contentType(content.getContentType())
+                .contentLength(content.getSize())
+                .body(content.getResource());
+    }
+
+    /* заголовки собираются только из метаданных: содержимое файла не читается */
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> headById(@PathVariable int id,
+                                         @RequestParam(defaultValue = "0") int size,
+                                         @RequestHeader HttpHeaders requestHeaders) {
+        var contentOptional = fileService.getFileMetadataById(id, size);
+        if (contentOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        var content = contentOptional.get();
+        var headers = getHeaders(content);
+        if (isNotModified(requestHeaders, headers)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+        return ResponseEntity.ok()
+                .headers(headers)
+                .contentType(content.getContentType())
+                .contentLength(content.getSize())
+                .build();
+    }
+
+    /*
+     * Отдельный обработчик нужен из-за объявленного типа результата: конвертер ResourceRegion
+     * выбирается по нему, а не по фактическому телу. Список из одного фрагмента пишется как обычный ответ 206.
+     * Содержимое по идентификатору неизменно, поэтому If-Range всегда выполняется и не проверяется.
+     * Фрагменты читаются из хранилища при записи ответа и в кеш не попадают.
+     */
+    @GetMapping(value = "/{id}", headers = HttpHeaders.RANGE)
+    public ResponseEntity<List<ResourceRegion>> getRangeById(@PathVariable int id,
+                                                             @RequestParam(defaultValue = "0") int size,
+                                                             @RequestHeader HttpHeaders requestHeaders) {
+        var contentOptional = fileService.getFileMetadataById(id, size);
         if (contentOptional.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(contentOptional.get().getContent());
+        var content = contentOptional.get();
+        var headers = getHeaders(content);
+        if (isNotModified(requestHeaders, headers)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+        List<ResourceRegion> regions;
+        try {
+            regions = toResourceRegions(HttpRange.parseRanges(requestHeaders.getFirst(HttpHeaders.RANGE)), content);
+        } catch (IllegalArgumentException e) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + content.getSize());
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+        }
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .contentType(content.getContentType())
+                .body(regions);
+    }
+
+    private HttpHeaders getHeaders(FileResourceDto content) {
+        var headers = new HttpHeaders();
+        headers.setCacheControl(content.isFallback() ? FALLBACK_CACHE_CONTROL : CACHE_CONTROL);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (content.getChecksum() != null) {
+            headers.setETag("\"" + content.getChecksum() + "\"");
+        }
+        if (content.getLastModified() != null) {
+            headers.setLastModified(content.getLastModified().atZone(ZoneId.systemDefault()));
+        }
+        return headers;
+    }
+
+    /* границы считаются по размеру из метаданных, без обращения к файлу; сами байты читаются при записи ответа */
+    private List<ResourceRegion> toResourceRegions(List<HttpRange> ranges, FileResourceDto content) {
+        if (ranges.isEmpty()) {
+            throw new IllegalArgumentException("No ranges requested");
+        }
+        var size = content.getSize();
+        var regions = new ArrayList<ResourceRegion>(ranges.size());
+        long total = 0;
+        for (var range : ranges) {
+            var start = range.getRangeStart(size);
+            var end = range.getRangeEnd(size);
+            if (start >= size || start > end) {
+                throw new IllegalArgumentException("Range is not satisfiable: " + range);
+            }
+            total += end - start + 1;
+            regions.add(new ResourceRegion(content.getResource(), start, end - start + 1));
+        }
+        if (ranges.size() > 1 && total > size) {
+            throw new IllegalArgumentException("Requested ranges exceed the file size");
+        }
+        return regions;
+    }
+
+    /* If-Modified-Since учитывается, только если клиент не прислал If-None-Match */
+    private boolean isNotModified(HttpHeaders requestHeaders, HttpHeaders headers) {
+        var ifNoneMatch = requestHeaders.get(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return headers.getETag() != null && matchesETag(String.join(",", ifNoneMatch), headers.getETag());
+        }
+        var ifModifiedSince = requestHeaders.getIfModifiedSince();
+        var lastModified = headers.getLastModified();
+        return ifModifiedSince >= 0 && lastModified >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    private boolean matchesETag(String ifNoneMatch, String eTag) {
+        for (var candidate : ifNoneMatch.split(",")) {
+            var tag = candidate.trim();
+            if ("*".equals(tag) || eTag.equals(tag.startsWith("W/") ? tag.substring(2) : tag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
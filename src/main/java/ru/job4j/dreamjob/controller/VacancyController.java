@@ -5,10 +5,18 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.ImportReport;
+import ru.job4j.dreamjob.dto.Page;
+import ru.job4j.dreamjob.dto.VacancyFilter;
 import ru.job4j.dreamjob.model.Vacancy;
 import ru.job4j.dreamjob.service.CityService;
+import ru.job4j.dreamjob.service.FileService;
+import ru.job4j.dreamjob.service.VacancyImporter;
 import ru.job4j.dreamjob.service.VacancyService;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 @Controller
 @RequestMapping("/vacancies") /* Работать с кандидатами будем по URI /vacancies/** */
 public class VacancyController {
@@ -17,17 +25,45 @@ public class VacancyController {
 
     private final CityService cityService;
 
-    public VacancyController(VacancyService vacancyService,  CityService cityService) {
+    private final FileService fileService;
+
+    private final VacancyImporter vacancyImporter;
+
+    public VacancyController(VacancyService vacancyService, CityService cityService, FileService fileService,
+                             VacancyImporter vacancyImporter) {
         this.vacancyService = vacancyService;
         this.cityService = cityService;
+        this.fileService = fileService;
+        this.vacancyImporter = vacancyImporter;
     }
 
     @GetMapping
-    public String getAll(Model model) {
-        model.addAttribute("vacancies", vacancyService.findAll());
+    public String getAll(Model model,
+                         @ModelAttribute("filter") VacancyFilter filter,
+                         @RequestParam(required = false) String after,
+                         @RequestParam(required = false) String before,
+                         @RequestParam(defaultValue = "20") int size) {
+        var page = vacancyService.findPage(filter, after, before, size);
+        model.addAttribute("cities", cityService.findAll());
+        model.addAttribute("vacancies", page.items());
+        model.addAttribute("page", page);
+        model.addAttribute("size", Page.limit(size));
         return "vacancies/list";
     }
 
+    @GetMapping("/search")
+    public String search(Model model,
+                         @RequestParam(defaultValue = "") String query,
+                         @RequestParam(defaultValue = "1") int page,
+                         @RequestParam(defaultValue = "20") int size) {
+        var result = vacancyService.search(query, page, size);
+        model.addAttribute("vacancies", result.items());
+        model.addAttribute("page", result);
+        model.addAttribute("query", query);
+        model.addAttribute("size", Page.limit(size));
+        return "vacancies/search";
+    }
+
     @GetMapping("/create")
     public String getCreationPage(Model model) {
         model.addAttribute("cities", cityService.findAll());
@@ -37,7 +73,7 @@ public class VacancyController {
     @PostMapping("/create")
     public String create(@ModelAttribute Vacancy vacancy, @RequestParam MultipartFile file, Model model) {
         try {
-            vacancyService.save(vacancy, new FileDto(file.getOriginalFilename(), file.getBytes()));
+            vacancyService.save(vacancy, new FileDto(file.getOriginalFilename(), file, file.getSize()));
             return "redirect:/vacancies";
         } catch (Exception exception) {
             model.addAttribute("message", exception.getMessage());
@@ -45,6 +81,19 @@ public class VacancyController {
         }
     }
 
+    /* тело запроса читается потоком, в ответ - отчёт о загрузке */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @ResponseBody
+    public ImportReport importCsv(InputStream body) throws IOException {
+        return vacancyImporter.importCsv(body);
+    }
+
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    @ResponseBody
+    public ImportReport importJsonLines(InputStream body) throws IOException {
+        return vacancyImporter.importJsonLines(body);
+    }
+
     @GetMapping("/{id}")
     public String getById(Model model, @PathVariable int id) {
         var vacancyOptional = vacancyService.findById(id);
@@ -53,13 +102,14 @@ public class VacancyController {
         }
         model.addAttribute("cities", cityService.findAll());
         model.addAttribute("vacancy", vacancyOptional.get());
+        model.addAttribute("file", fileService.findById(vacancyOptional.get().getFileId()).orElse(null));
         return "vacancies/one";
     }
 
     @PostMapping("/update")
     public String update(@ModelAttribute Vacancy vacancy, @RequestParam MultipartFile file, Model model) {
         try {
-            var isUpdated = vacancyService.update(vacancy, new FileDto(file.getOriginalFilename(), file.getBytes()));
+            var isUpdated = vacancyService.update(vacancy, new FileDto(file.getOriginalFilename(), file, file.getSize()));
             if (!isUpdated) {
                 return getError(model);
             }
@@ -0,0 +1,35 @@
+package ru.job4j.dreamjob.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Позиция в списке, упорядоченном по (creation_date, id). В ссылках передаётся строкой вида
+ * {@code 2024-01-31T10:15:30.123456_42}; id нужен, потому что даты создания могут совпадать.
+ */
+public record Cursor(LocalDateTime creationDate, int id) {
+    private static final char SEPARATOR = '_';
+
+    public String encode() {
+        return creationDate.toString() + SEPARATOR + id;
+    }
+
+    /* испорченный курсор из адресной строки - не ошибка, просто показываем первую страницу */
+    public static Optional<Cursor> decode(String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        var separatorIndex = value.lastIndexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            return Optional.empty();
+        }
+        try {
+            var creationDate = LocalDateTime.parse(value.substring(0, separatorIndex));
+            var id = Integer.parseInt(value.substring(separatorIndex + 1));
+            return Optional.of(new Cursor(creationDate, id));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
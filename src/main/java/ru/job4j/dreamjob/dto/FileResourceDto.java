@@ -0,0 +1,86 @@
+package ru.job4j.dreamjob.dto;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+
+import java.time.LocalDateTime;
+
+public class FileResourceDto {
+    private String name;
+
+    private MediaType contentType;
+
+    private long size;
+
+    private String checksum;
+
+    private Resource resource; /*содержимое не читается в память, а отдаётся потоком при записи ответа*/
+
+    private boolean fallback; /*запрошенная уменьшенная копия ещё не готова и вместо неё отдан оригинал*/
+
+    private LocalDateTime lastModified;
+
+    public FileResourceDto(String name, MediaType contentType, long size, String checksum, Resource resource) {
+        this.name = name;
+        this.contentType = contentType;
+        this.size = size;
+        this.checksum = checksum;
+        this.resource = resource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public MediaType getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(MediaType contentType) {
+        this.contentType = contentType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public Resource getResource() {
+        return resource;
+    }
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+
+    public boolean isFallback() {
+        return fallback;
+    }
+
+    public void setFallback(boolean fallback) {
+        this.fallback = fallback;
+    }
+
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(LocalDateTime lastModified) {
+        this.lastModified = lastModified;
+    }
+}
@@ -0,0 +1,9 @@
+package ru.job4j.dreamjob.dto;
+
+import java.util.List;
+
+/* errors - не более первых ста ошибок, failed - число всех отклонённых строк */
+public record ImportReport(int imported, int failed, List<RowError> errors) {
+    public record RowError(int row, String message) {
+    }
+}
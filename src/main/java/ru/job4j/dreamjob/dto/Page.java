@@ -0,0 +1,59 @@
+package ru.job4j.dreamjob.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница списка, упорядоченного по курсору. next и previous - закодированные курсоры
+ * для ссылок "дальше" и "назад", null если в ту сторону строк больше нет.
+ */
+public record Page<T>(List<T> items, String next, String previous) {
+    public static final int MAX_SIZE = 100;
+
+    /* дальше по результатам поиска не листают, а уточняют запрос */
+    public static final int MAX_NUMBER = 50;
+
+    public static int limit(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * Собирает страницу из строк, прочитанных с запасом в одну строку: лишняя строка значит,
+     * что дальше (для backward - ближе к началу списка) есть ещё данные.
+     * Строки для backward должны идти в общем порядке списка, лишняя - первой.
+     */
+    public static <T> Page<T> of(List<T> rows, int size, boolean backward, boolean hasCursor,
+                                 Function<T, Cursor> cursorOf) {
+        var hasMore = rows.size() > size;
+        if (!backward) {
+            var items = hasMore ? rows.subList(0, size) : rows;
+            var next = hasMore ? encode(items.get(items.size() - 1), cursorOf) : null;
+            var previous = hasCursor && !items.isEmpty() ? encode(items.get(0), cursorOf) : null;
+            return new Page<>(List.copyOf(items), next, previous);
+        }
+        var items = hasMore ? rows.subList(rows.size() - size, rows.size()) : rows;
+        var previous = hasMore ? encode(items.get(0), cursorOf) : null;
+        var next = items.isEmpty() ? null : encode(items.get(items.size() - 1), cursorOf);
+        return new Page<>(List.copyOf(items), next, previous);
+    }
+
+    /**
+     * Страница с номером number (с единицы) для списков без курсора, например результатов поиска.
+     * Строки прочитаны с запасом в одну строку; next и previous - номера соседних страниц.
+     */
+    public static <T> Page<T> numbered(List<T> rows, int size, int number) {
+        var hasMore = rows.size() > size && number < MAX_NUMBER;
+        var items = rows.size() > size ? rows.subList(0, size) : rows;
+        return new Page<>(List.copyOf(items),
+                hasMore ? String.valueOf(number + 1) : null,
+                number > 1 ? String.valueOf(number - 1) : null);
+    }
+
+    public static int number(int number) {
+        return Math.max(1, Math.min(number, MAX_NUMBER));
+    }
+
+    private static <T> String encode(T item, Function<T, Cursor> cursorOf) {
+        return cursorOf.apply(item).encode();
+    }
+}
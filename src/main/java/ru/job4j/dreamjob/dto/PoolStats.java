@@ -0,0 +1,12 @@
+package ru.job4j.dreamjob.dto;
+
+import java.util.Map;
+
+/**
+ * Состояние пула соединений. waitHistogram - число выдач соединения по времени ожидания,
+ * ключ - верхняя граница интервала в миллисекундах; timeouts - запросы, не дождавшиеся
+ * соединения за maxWait, failures - прочие ошибки получения соединения.
+ */
+public record PoolStats(int active, int idle, int maxTotal, long borrowed, long timeouts, long failures,
+                        double meanWaitMillis, Map<String, Long> waitHistogram) {
+}
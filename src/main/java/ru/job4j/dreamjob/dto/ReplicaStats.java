@@ -0,0 +1,5 @@
+package ru.job4j.dreamjob.dto;
+
+/* reads - сколько соединений для чтения выдано репликой */
+public record ReplicaStats(String url, boolean healthy, long reads, PoolStats pool) {
+}
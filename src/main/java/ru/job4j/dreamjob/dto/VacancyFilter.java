@@ -0,0 +1,42 @@
+package ru.job4j.dreamjob.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Отбор и порядок вакансий в списке. Пустое поле - без отбора по нему;
+ * даты включительные и сравниваются с датой создания.
+ */
+public record VacancyFilter(Integer cityId,
+                            Boolean visible,
+                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                            Sort sort) {
+    public static final VacancyFilter NONE = new VacancyFilter(null, null, null, null, Sort.NEWEST);
+
+    public enum Sort {
+        NEWEST, OLDEST
+    }
+
+    public VacancyFilter {
+        sort = sort == null ? Sort.NEWEST : sort;
+    }
+
+    public boolean isAscending() {
+        return sort == Sort.OLDEST;
+    }
+
+    /* адрес списка с этим же отбором - для ссылок постраничной навигации */
+    public String appendTo(String path) {
+        return UriComponentsBuilder.fromPath(path)
+                .queryParamIfPresent("cityId", Optional.ofNullable(cityId))
+                .queryParamIfPresent("visible", Optional.ofNullable(visible))
+                .queryParamIfPresent("from", Optional.ofNullable(from))
+                .queryParamIfPresent("to", Optional.ofNullable(to))
+                .queryParamIfPresent("sort", Optional.of(sort).filter(value -> value != Sort.NEWEST))
+                .toUriString();
+    }
+}
@@ -20,7 +20,8 @@ public class AuthorizationFilter extends HttpFilter {
             chain.doFilter(request, response);
             return;
         }
-        var userLoggedIn = request.getSession().getAttribute("user") != null;
+        var session = request.getSession(false);
+        var userLoggedIn = session != null && session.getAttribute("user") != null;
         if (!userLoggedIn) {
             var loginPageUrl = request.getContextPath() + "/users/login";
             response.sendRedirect(loginPageUrl);
@@ -0,0 +1,57 @@
+package ru.job4j.dreamjob.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.configuration.ReplicaRouting;
+
+import java.io.IOException;
+
+/**
+ * Открывает для запроса область {@link ReplicaRouting}. После записи сессия на readYourWritesMillis
+ * закрепляется за основной базой: следующие запросы пользователя (например, страница после редиректа)
+ * видят его изменения, даже если реплики ещё не догнали основную базу.
+ */
+@Component
+@Order(3)
+public class ReplicaRoutingFilter extends HttpFilter {
+    private static final String PRIMARY_UNTIL = "primaryUntil";
+
+    private final long readYourWritesMillis;
+
+    public ReplicaRoutingFilter(@Value("${datasource.replica.read-your-writes-seconds}") long readYourWritesSeconds) {
+        this.readYourWritesMillis = readYourWritesSeconds * 1000;
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
+        var session = request.getSession(false);
+        var primaryUntil = session != null ? (Long) session.getAttribute(PRIMARY_UNTIL) : null;
+        ReplicaRouting.begin(primaryUntil != null && primaryUntil > System.currentTimeMillis());
+        var written = false;
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            written = ReplicaRouting.end();
+        }
+        if (written) {
+            pinToPrimary(request, response);
+        }
+    }
+
+    /*
+     * Сессия создаётся только здесь, ради закрепления: статике и чтениям она не нужна.
+     * После отправки ответа cookie новой сессии уже не передать, тогда закреплять некого.
+     */
+    private void pinToPrimary(HttpServletRequest request, HttpServletResponse response) {
+        var session = request.getSession(!response.isCommitted());
+        if (session != null) {
+            session.setAttribute(PRIMARY_UNTIL, System.currentTimeMillis() + readYourWritesMillis);
+        }
+    }
+}
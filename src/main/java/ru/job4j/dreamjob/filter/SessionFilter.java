@@ -17,13 +17,13 @@ import java.io.IOException;
 public class SessionFilter extends HttpFilter {
     @Override
     protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
-        var session = request.getSession();
+        var session = request.getSession(false);
         addUserToSession(session, request);
         chain.doFilter(request, response);
     }
 
     private void addUserToSession(HttpSession session, HttpServletRequest request) {
-        var user = (User) session.getAttribute("user");
+        var user = session != null ? (User) session.getAttribute("user") : null;
         if (user == null) {
             user = new User();
             user.setName("Гость");
@@ -0,0 +1,12 @@
+package ru.job4j.dreamjob.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Кандидат в списке: только то, что показывается в таблице, без описания.
+ */
+public record CandidateSummary(int id, String name, LocalDateTime creationDate) {
+    public static CandidateSummary of(Candidate candidate) {
+        return new CandidateSummary(candidate.getId(), candidate.getName(), candidate.getCreationDate());
+    }
+}
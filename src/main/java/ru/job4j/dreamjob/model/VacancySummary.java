@@ -0,0 +1,13 @@
+package ru.job4j.dreamjob.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Вакансия в списке: только то, что показывается в таблице, без описания, но с названием города.
+ */
+public record VacancySummary(int id, String title, LocalDateTime creationDate, boolean visible, String cityName) {
+    public static VacancySummary of(Vacancy vacancy, String cityName) {
+        return new VacancySummary(vacancy.getId(), vacancy.getTitle(), vacancy.getCreationDate(), vacancy.getVisible(),
+                cityName);
+    }
+}
@@ -0,0 +1,89 @@
+package ru.job4j.dreamjob.repository;
+
+import ru.job4j.dreamjob.cache.CacheStats;
+import ru.job4j.dreamjob.cache.ReadThroughCache;
+import ru.job4j.dreamjob.configuration.ReplicaRouting;
+import ru.job4j.dreamjob.dto.Cursor;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.CandidateSummary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Кандидаты по id читаются из кеша, см. {@link CachingVacancyRepository}.
+ */
+public class CachingCandidateRepository implements CandidateRepository {
+    private final CandidateRepository candidateRepository;
+
+    private final ReadThroughCache<Integer, Candidate> cache;
+
+    public CachingCandidateRepository(CandidateRepository candidateRepository, ReadThroughCache<Integer, Candidate> cache) {
+        this.candidateRepository = candidateRepository;
+        this.cache = cache;
+    }
+
+    @Override
+    public Candidate save(Candidate candidate) {
+        return candidateRepository.save(candidate);
+    }
+
+    @Override
+    public Optional<Integer> deleteReturningFileId(int id) {
+        try {
+            return candidateRepository.deleteReturningFileId(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean update(Candidate candidate) {
+        try {
+            return candidateRepository.update(candidate);
+        } finally {
+            cache.invalidate(candidate.getId());
+        }
+    }
+
+    @Override
+    public Optional<Candidate> findById(int id) {
+        return cache.get(id, key -> ReplicaRouting.primary(() -> candidateRepository.findById(key)));
+    }
+
+    @Override
+    public Collection<Candidate> findAll() {
+        return candidateRepository.findAll();
+    }
+
+    @Override
+    public void forEach(Consumer<Candidate> action) {
+        candidateRepository.forEach(action);
+    }
+
+    @Override
+    public List<CandidateSummary> findSummariesAfter(Cursor cursor, int limit) {
+        return candidateRepository.findSummariesAfter(cursor, limit);
+    }
+
+    @Override
+    public List<CandidateSummary> findSummariesBefore(Cursor cursor, int limit) {
+        return candidateRepository.findSummariesBefore(cursor, limit);
+    }
+
+    @Override
+    public List<CandidateSummary> search(String query, int offset, int limit) {
+        return candidateRepository.search(query, offset, limit);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public static Candidate copy(Candidate candidate) {
+        return new Candidate(candidate.getId(), candidate.getName(), candidate.getDescription(),
+                candidate.getCreationDate(), candidate.getFileId());
+    }
+}
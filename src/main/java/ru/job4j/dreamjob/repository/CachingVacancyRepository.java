@@ -0,0 +1,98 @@
+package ru.job4j.dreamjob.repository;
+
+import ru.job4j.dreamjob.cache.CacheStats;
+import ru.job4j.dreamjob.cache.ReadThroughCache;
+import ru.job4j.dreamjob.configuration.ReplicaRouting;
+import ru.job4j.dreamjob.dto.Cursor;
+import ru.job4j.dreamjob.dto.VacancyFilter;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.model.VacancySummary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Вакансии по id читаются из кеша, остальное передаётся хранилищу как есть.
+ * Изменённая или удалённая вакансия вычеркивается из кеша после записи в хранилище.
+ * Промах загружается из основной базы: кеш общий для всех сессий, и строка с отставшей реплики
+ * после изменения раздавалась бы всем, включая автора изменения, до истечения срока.
+ */
+public class CachingVacancyRepository implements VacancyRepository {
+    private final VacancyRepository vacancyRepository;
+
+    private final ReadThroughCache<Integer, Vacancy> cache;
+
+    public CachingVacancyRepository(VacancyRepository vacancyRepository, ReadThroughCache<Integer, Vacancy> cache) {
+        this.vacancyRepository = vacancyRepository;
+        this.cache = cache;
+    }
+
+    @Override
+    public Vacancy save(Vacancy vacancy) {
+        return vacancyRepository.save(vacancy);
+    }
+
+    @Override
+    public List<Vacancy> saveAll(List<Vacancy> vacancies) {
+        return vacancyRepository.saveAll(vacancies);
+    }
+
+    @Override
+    public Optional<Integer> deleteReturningFileId(int id) {
+        try {
+            return vacancyRepository.deleteReturningFileId(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean update(Vacancy vacancy) {
+        try {
+            return vacancyRepository.update(vacancy);
+        } finally {
+            cache.invalidate(vacancy.getId());
+        }
+    }
+
+    @Override
+    public Optional<Vacancy> findById(int id) {
+        return cache.get(id, key -> ReplicaRouting.primary(() -> vacancyRepository.findById(key)));
+    }
+
+    @Override
+    public Collection<Vacancy> findAll() {
+        return vacancyRepository.findAll();
+    }
+
+    @Override
+    public void forEach(Consumer<Vacancy> action) {
+        vacancyRepository.forEach(action);
+    }
+
+    @Override
+    public List<VacancySummary> findSummariesAfter(VacancyFilter filter, Cursor cursor, int limit) {
+        return vacancyRepository.findSummariesAfter(filter, cursor, limit);
+    }
+
+    @Override
+    public List<VacancySummary> findSummariesBefore(VacancyFilter filter, Cursor cursor, int limit) {
+        return vacancyRepository.findSummariesBefore(filter, cursor, limit);
+    }
+
+    @Override
+    public List<VacancySummary> search(String query, int offset, int limit) {
+        return vacancyRepository.search(query, offset, limit);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public static Vacancy copy(Vacancy vacancy) {
+        return new Vacancy(vacancy.getId(), vacancy.getTitle(), vacancy.getDescription(), vacancy.getCreationDate(),
+                vacancy.getVisible(), vacancy.getCityId(), vacancy.getFileId());
+    }
+}
@@ -1,18 +1,39 @@
 package ru.job4j.dreamjob.repository;
 
+import ru.job4j.dreamjob.dto.Cursor;
 import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.CandidateSummary;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface CandidateRepository {
     Candidate save(Candidate candidate);
 
-    boolean deleteById(int id);
+    /* удаляет одним запросом и возвращает file_id удалённой записи (0 - без файла); пусто, если записи не было */
+    Optional<Integer> deleteReturningFileId(int id);
+
+    default boolean deleteById(int id) {
+        return deleteReturningFileId(id).isPresent();
+    }
 
     boolean update(Candidate candidate);
 
     Optional<Candidate> findById(int id);
 
     Collection<Candidate> findAll();
+
+    /* обходит все кандидатов по возрастанию id, не загружая их в память разом */
+    void forEach(Consumer<Candidate> action);
+
+    /* список упорядочен от новых к старым по (creation_date, id); без курсора - с начала списка */
+    List<CandidateSummary> findSummariesAfter(Cursor cursor, int limit);
+
+    /* не более limit строк, непосредственно предшествующих курсору, в порядке списка */
+    List<CandidateSummary> findSummariesBefore(Cursor cursor, int limit);
+
+    /* найденные по словам запроса, самые подходящие первыми */
+    List<CandidateSummary> search(String query, int offset, int limit);
 }
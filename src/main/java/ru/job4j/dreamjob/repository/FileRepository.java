@@ -2,12 +2,32 @@ package ru.job4j.dreamjob.repository;
 
 import ru.job4j.dreamjob.model.File;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public interface FileRepository {
     File save(File file);
 
     Optional<File> findById(int id);
 
+    Optional<File> findByChecksum(String checksum);
+
+    /* отсутствующие id пропускаются */
+    List<File> findByIds(Collection<Integer> ids);
+
+    boolean addReference(int id);
+
+    /* возвращает true, если ссылок не осталось и запись удалена */
+    boolean removeReference(int id);
+
     void deleteById(int id);
+
+    /* постраничный обход по возрастанию id для фоновых задач */
+    List<File> findAfterId(int id, int limit);
+
+    /* возвращает id записей, которые были обновлены */
+    Set<Integer> updatePaths(Map<Integer, String> paths);
 }
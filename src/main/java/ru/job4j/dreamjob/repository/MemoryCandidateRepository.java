@@ -1,22 +1,33 @@
 package ru.job4j.dreamjob.repository;
 
 import org.springframework.stereotype.Repository;
+import ru.job4j.dreamjob.dto.Cursor;
 import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.CandidateSummary;
+import ru.job4j.dreamjob.search.SearchIndex;
 
 import javax.annotation.concurrent.ThreadSafe;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @ThreadSafe
 @Repository
 public class MemoryCandidateRepository implements CandidateRepository {
 
+    private static final Comparator<Candidate> LIST_ORDER = Comparator
+            .comparing(Candidate::getCreationDate)
+            .thenComparingInt(Candidate::getId)
+            .reversed();
+
     private final AtomicInteger nextId = new AtomicInteger(0);
 
     private final ConcurrentMap<Integer, Candidate> candidates = new ConcurrentHashMap<>();
 
+    private final SearchIndex searchIndex = new SearchIndex();
+
     private MemoryCandidateRepository() {
         save(new Candidate(0, "Ivan", "description1", 0));
         save(new Candidate(0, "Vasiliy", "description2", 0));
@@ -30,23 +41,29 @@ public class MemoryCandidateRepository implements CandidateRepository {
     public Candidate save(Candidate candidate) {
         candidate.setId(nextId.incrementAndGet());
         candidates.put(candidate.getId(), candidate);
+        searchIndex.put(candidate.getId(), candidate.getName(), candidate.getDescription());
         return candidate;
     }
 
     @Override
-    public boolean deleteById(int id) {
-        return candidates.remove(id) == null;
+    public Optional<Integer> deleteReturningFileId(int id) {
+        searchIndex.remove(id);
+        return Optional.ofNullable(candidates.remove(id)).map(Candidate::getFileId);
     }
 
     @Override
     public boolean update(Candidate candidate) {
-        return candidates.computeIfPresent(candidate.getId(),
+        var isUpdated = candidates.computeIfPresent(candidate.getId(),
                 (id, oldCandidate) -> new Candidate(
                         oldCandidate.getId(),
                         candidate.getName(),
                         candidate.getDescription(),
                         candidate.getFileId())
         ) != null;
+        if (isUpdated) {
+            searchIndex.put(candidate.getId(), candidate.getName(), candidate.getDescription());
+        }
+        return isUpdated;
     }
 
     @Override
@@ -58,4 +75,50 @@ public class MemoryCandidateRepository implements CandidateRepository {
     public Collection<Candidate> findAll() {
         return candidates.values();
     }
+
+    @Override
+    public void forEach(Consumer<Candidate> action) {
+        candidates.values().stream()
+                .sorted(Comparator.comparingInt(Candidate::getId))
+                .forEach(action);
+    }
+
+    @Override
+    public List<CandidateSummary> findSummariesAfter(Cursor cursor, int limit) {
+        var bound = cursor == null ? null : toItem(cursor);
+        return candidates.values().stream()
+                .filter(item -> bound == null || LIST_ORDER.compare(item, bound) > 0)
+                .sorted(LIST_ORDER)
+                .limit(limit)
+                .map(CandidateSummary::of)
+                .toList();
+    }
+
+    @Override
+    public List<CandidateSummary> findSummariesBefore(Cursor cursor, int limit) {
+        var bound = toItem(cursor);
+        var newer = candidates.values().stream()
+                .filter(item -> LIST_ORDER.compare(item, bound) < 0)
+                .sorted(LIST_ORDER)
+                .toList();
+        return newer.subList(Math.max(0, newer.size() - limit), newer.size()).stream()
+                .map(CandidateSummary::of)
+                .toList();
+    }
+
+    private static Candidate toItem(Cursor cursor) {
+        var item = new Candidate();
+        item.setId(cursor.id());
+        item.setCreationDate(cursor.creationDate());
+        return item;
+    }
+
+    @Override
+    public List<CandidateSummary> search(String query, int offset, int limit) {
+        return searchIndex.search(query, offset, limit).stream()
+                .map(candidates::get)
+                .filter(Objects::nonNull)
+                .map(CandidateSummary::of)
+                .toList();
+    }
 }
@@ -3,8 +3,14 @@ package ru.job4j.dreamjob.repository;
 import org.springframework.stereotype.Repository;
 import ru.job4j.dreamjob.model.File;
 
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -14,10 +20,13 @@ public class MemoryFileRepository implements FileRepository {
 
     private final Map<Integer, File> files = new ConcurrentHashMap<>();
 
+    private final Map<Integer, Integer> references = new ConcurrentHashMap<>();
+
     @Override
     public File save(File file) {
         file.setId(nextId.incrementAndGet());
         files.put(file.getId(), file);
+        references.put(file.getId(), 1);
         return file;
     }
 
@@ -26,8 +35,58 @@ public class MemoryFileRepository implements FileRepository {
         return Optional.ofNullable(files.get(id));
     }
 
+    @Override
+    public Optional<File> findByChecksum(String checksum) {
+        return files.values().stream()
+                .filter(file -> Objects.equals(file.getChecksum(), checksum))
+                .min(Comparator.comparingInt(File::getId));
+    }
+
+    @Override
+    public List<File> findByIds(Collection<Integer> ids) {
+        return ids.stream()
+                .map(files::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public boolean addReference(int id) {
+        return references.computeIfPresent(id, (key, count) -> count + 1) != null;
+    }
+
+    @Override
+    public boolean removeReference(int id) {
+        var remaining = references.computeIfPresent(id, (key, count) -> count > 1 ? count - 1 : null);
+        return remaining == null && files.remove(id) != null;
+    }
+
     @Override
     public void deleteById(int id) {
         files.remove(id);
+        references.remove(id);
+    }
+
+    @Override
+    public List<File> findAfterId(int id, int limit) {
+        return files.values().stream()
+                .filter(file -> file.getId() > id)
+                .sorted(Comparator.comparingInt(File::getId))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Set<Integer> updatePaths(Map<Integer, String> paths) {
+        var updated = new HashSet<Integer>();
+        paths.forEach((id, path) -> {
+            if (files.computeIfPresent(id, (key, file) -> {
+                file.setPath(path);
+                return file;
+            }) != null) {
+                updated.add(id);
+            }
+        });
+        return updated;
     }
 }
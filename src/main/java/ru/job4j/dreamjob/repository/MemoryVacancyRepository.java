@@ -1,24 +1,62 @@
 package ru.job4j.dreamjob.repository;
 
 import org.springframework.stereotype.Repository;
+import ru.job4j.dreamjob.dto.Cursor;
+import ru.job4j.dreamjob.dto.VacancyFilter;
 import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.model.VacancySummary;
+import ru.job4j.dreamjob.search.SearchIndex;
 
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Вакансии в памяти для демонстрационного режима. Кроме основной таблицы по id есть вторичные индексы:
+ * по дате создания (ключи (creation_date, id) в порядке списка), по городу и по видимости,
+ * каждый тоже упорядочен по дате. Страница списка берёт самый узкий подходящий индекс, начинает
+ * сразу с курсора и останавливается, набрав limit строк, а не перебирает все вакансии.
+ *
+ * Таблица, индексы и версия поискового индекса - неизменяемый снимок, опубликованный через volatile-поле.
+ * Таблица и индексы - {@link PersistentTreeMap}: запись копирует только путь к изменённому ключу,
+ * O(log n), а не всю структуру. Писатели идут по одному, читатель берёт текущий снимок без блокировок,
+ * не задерживает писателей и не увидит вакансию в одном индексе и не увидит в другом,
+ * а поиск найдёт её по тому тексту, который лежит в таблице. Наружу отдаются копии и неизменяемые списки.
+ */
 @ThreadSafe
 @Repository
 public class MemoryVacancyRepository implements VacancyRepository {
 
-    private final AtomicInteger nextId = new AtomicInteger(0);
+    private static final Comparator<Cursor> BY_CREATION_DATE = Comparator
+            .comparing(Cursor::creationDate)
+            .thenComparingInt(Cursor::id);
 
-    private final ConcurrentMap<Integer, Vacancy> vacancies = new ConcurrentHashMap<>();
+    private static final PersistentTreeMap<Cursor, Vacancy> NO_KEYS = PersistentTreeMap.empty(BY_CREATION_DATE);
 
-    private MemoryVacancyRepository() {
+    private final SearchIndex searchIndex = new SearchIndex();
+
+    private volatile Snapshot snapshot = new Snapshot(PersistentTreeMap.empty(Comparator.naturalOrder()),
+            NO_KEYS, Map.of(), Map.of(), searchIndex.version());
+
+    private int nextId;
+
+    private final Map<Integer, String> cityNames = new HashMap<>();
+
+    public MemoryVacancyRepository(CityRepository memoryCityRepository) {
+        memoryCityRepository.findAll().forEach(city -> cityNames.put(city.getId(), city.getName()));
         save(new Vacancy(0, "Intern Java Developer", "description1", true, 1, 0));
         save(new Vacancy(0, "Junior Java Developer", "description2", true, 3, 0));
         save(new Vacancy(0, "Junior+ Java Developer", "description3", true, 3, 0));
@@ -28,37 +66,202 @@ public class MemoryVacancyRepository implements VacancyRepository {
     }
 
     @Override
-    public Vacancy save(Vacancy vacancy) {
-        vacancy.setId(nextId.incrementAndGet());
-        vacancies.put(vacancy.getId(), vacancy);
+    public synchronized Vacancy save(Vacancy vacancy) {
+        vacancy.setId(++nextId);
+        publish(add(snapshot, copy(vacancy)));
         return vacancy;
     }
 
+    /* все вакансии появляются одним снимком: читатель не увидит половину загрузки */
+    @Override
+    public synchronized List<Vacancy> saveAll(List<Vacancy> vacancies) {
+        var next = snapshot;
+        for (var vacancy : vacancies) {
+            vacancy.setId(++nextId);
+            next = add(next, copy(vacancy));
+        }
+        publish(next);
+        return vacancies;
+    }
+
     @Override
-    public boolean deleteById(int id) {
-        return vacancies.remove(id) == null;
+    public synchronized Optional<Integer> deleteReturningFileId(int id) {
+        var vacancy = snapshot.vacancies().get(id);
+        if (vacancy == null) {
+            return Optional.empty();
+        }
+        searchIndex.remove(id);
+        publish(remove(snapshot, vacancy));
+        return Optional.of(vacancy.getFileId());
     }
 
+    /* все поля, включая дату создания, берутся из vacancy, как в Sql2oVacancyRepository */
     @Override
-    public boolean update(Vacancy vacancy) {
-        return vacancies.computeIfPresent(vacancy.getId(),
-                (id, oldVacancy) -> new Vacancy(
-                        oldVacancy.getId(),
-                        vacancy.getTitle(),
-                        vacancy.getDescription(),
-                        vacancy.getVisible(),
-                        vacancy.getCityId(),
-                        vacancy.getFileId())
-        ) != null;
+    public synchronized boolean update(Vacancy vacancy) {
+        var old = snapshot.vacancies().get(vacancy.getId());
+        if (old == null) {
+            return false;
+        }
+        publish(add(remove(snapshot, old), copy(vacancy)));
+        return true;
     }
 
     @Override
     public Optional<Vacancy> findById(int id) {
-        return Optional.ofNullable(vacancies.get(id));
+        return Optional.ofNullable(snapshot.vacancies().get(id)).map(MemoryVacancyRepository::copy);
     }
 
     @Override
     public Collection<Vacancy> findAll() {
-        return vacancies.values();
+        return stream(snapshot.byCreationDate().descending(null, true))
+                .map(MemoryVacancyRepository::copy)
+                .toList();
+    }
+
+    /* обходится снимок, поэтому action может сам менять хранилище */
+    @Override
+    public void forEach(Consumer<Vacancy> action) {
+        stream(snapshot.vacancies().ascending(null, true))
+                .map(MemoryVacancyRepository::copy)
+                .forEach(action);
+    }
+
+    @Override
+    public List<VacancySummary> findSummariesAfter(VacancyFilter filter, Cursor cursor, int limit) {
+        return findPage(snapshot, filter, cursor, false, limit);
+    }
+
+    @Override
+    public List<VacancySummary> findSummariesBefore(VacancyFilter filter, Cursor cursor, int limit) {
+        return findPage(snapshot, filter, cursor, true, limit);
+    }
+
+    /* поиск идёт по версии индекса из того же снимка, что и таблица */
+    @Override
+    public List<VacancySummary> search(String query, int offset, int limit) {
+        var current = snapshot;
+        return SearchIndex.search(current.searchVersion(), query, offset, limit).stream()
+                .map(id -> toSummary(current.vacancies().get(id)))
+                .toList();
+    }
+
+    /**
+     * Строки, следующие за курсором в порядке списка, или - при backward - предшествующие ему,
+     * ближайшие к курсору первыми; их порядок разворачивается в порядок списка перед возвратом.
+     * Индекс сужает перебор, остальные условия отбора проверяются по самой вакансии.
+     */
+    private List<VacancySummary> findPage(Snapshot current, VacancyFilter filter, Cursor cursor,
+                                          boolean backward, int limit) {
+        var ascending = filter.isAscending() != backward;
+        /* ключ с наименьшим id - граница всех вакансий, созданных в этот момент; сам он ни с чем не совпадает */
+        var lower = filter.from() == null ? null : new Cursor(filter.from().atStartOfDay(), Integer.MIN_VALUE);
+        var upper = filter.to() == null ? null : new Cursor(filter.to().plusDays(1).atStartOfDay(), Integer.MIN_VALUE);
+        var keys = chooseIndex(current, filter);
+        var vacancies = ascending ? keys.ascending(max(lower, cursor), false) : keys.descending(min(upper, cursor), false);
+        var page = new ArrayList<VacancySummary>(limit);
+        while (vacancies.hasNext() && page.size() < limit) {
+            var vacancy = vacancies.next();
+            var key = keyOf(vacancy);
+            if (ascending ? upper != null && BY_CREATION_DATE.compare(key, upper) >= 0
+                    : lower != null && BY_CREATION_DATE.compare(key, lower) < 0) {
+                break;
+            }
+            if (matches(filter, vacancy)) {
+                page.add(toSummary(vacancy));
+            }
+        }
+        if (backward) {
+            Collections.reverse(page);
+        }
+        return List.copyOf(page);
+    }
+
+    private static PersistentTreeMap<Cursor, Vacancy> chooseIndex(Snapshot current, VacancyFilter filter) {
+        if (filter.cityId() != null) {
+            return current.byCity().getOrDefault(filter.cityId(), NO_KEYS);
+        }
+        if (filter.visible() != null) {
+            return current.byVisibility().getOrDefault(filter.visible(), NO_KEYS);
+        }
+        return current.byCreationDate();
+    }
+
+    private static boolean matches(VacancyFilter filter, Vacancy vacancy) {
+        return (filter.cityId() == null || filter.cityId() == vacancy.getCityId())
+                && (filter.visible() == null || filter.visible() == vacancy.getVisible());
+    }
+
+    private VacancySummary toSummary(Vacancy vacancy) {
+        return VacancySummary.of(vacancy, cityNames.get(vacancy.getCityId()));
+    }
+
+    private static Cursor keyOf(Vacancy vacancy) {
+        return new Cursor(vacancy.getCreationDate(), vacancy.getId());
+    }
+
+    private static Vacancy copy(Vacancy vacancy) {
+        return new Vacancy(vacancy.getId(), vacancy.getTitle(), vacancy.getDescription(), vacancy.getCreationDate(),
+                vacancy.getVisible(), vacancy.getCityId(), vacancy.getFileId());
+    }
+
+    private static Cursor max(Cursor from, Cursor cursor) {
+        if (cursor == null || from != null && BY_CREATION_DATE.compare(from, cursor) > 0) {
+            return from;
+        }
+        return cursor;
+    }
+
+    private static Cursor min(Cursor to, Cursor cursor) {
+        if (cursor == null || to != null && BY_CREATION_DATE.compare(to, cursor) < 0) {
+            return to;
+        }
+        return cursor;
+    }
+
+    private static <T> Stream<T> stream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    /* вызывается писателем; vacancy уже принадлежит хранилищу */
+    private Snapshot add(Snapshot current, Vacancy vacancy) {
+        var key = keyOf(vacancy);
+        searchIndex.put(vacancy.getId(), vacancy.getTitle(), vacancy.getDescription());
+        return new Snapshot(current.vacancies().put(vacancy.getId(), vacancy),
+                current.byCreationDate().put(key, vacancy),
+                with(current.byCity(), vacancy.getCityId(), keys -> keys.put(key, vacancy)),
+                with(current.byVisibility(), vacancy.getVisible(), keys -> keys.put(key, vacancy)),
+                current.searchVersion());
+    }
+
+    /* вызывается писателем; из поискового индекса запись убирает add новой версии или deleteReturningFileId */
+    private static Snapshot remove(Snapshot current, Vacancy vacancy) {
+        var key = keyOf(vacancy);
+        return new Snapshot(current.vacancies().remove(vacancy.getId()),
+                current.byCreationDate().remove(key),
+                with(current.byCity(), vacancy.getCityId(), keys -> keys.remove(key)),
+                with(current.byVisibility(), vacancy.getVisible(), keys -> keys.remove(key)),
+                current.searchVersion());
+    }
+
+    /* внешние отображения маленькие - по числу городов и значений видимости, их копия дешева */
+    private static <T> Map<T, PersistentTreeMap<Cursor, Vacancy>> with(Map<T, PersistentTreeMap<Cursor, Vacancy>> index,
+                                                                     T value,
+                                                                     UnaryOperator<PersistentTreeMap<Cursor, Vacancy>> change) {
+        var result = new HashMap<>(index);
+        result.put(value, change.apply(index.getOrDefault(value, NO_KEYS)));
+        return Map.copyOf(result);
+    }
+
+    /* версия поискового индекса берётся вместе со снимком, так что поиск и таблица не расходятся */
+    private void publish(Snapshot next) {
+        snapshot = new Snapshot(next.vacancies(), next.byCreationDate(), next.byCity(), next.byVisibility(),
+                searchIndex.version());
+    }
+
+    private record Snapshot(PersistentTreeMap<Integer, Vacancy> vacancies,
+                            PersistentTreeMap<Cursor, Vacancy> byCreationDate,
+                            Map<Integer, PersistentTreeMap<Cursor, Vacancy>> byCity,
+                            Map<Boolean, PersistentTreeMap<Cursor, Vacancy>> byVisibility,
+                            SearchIndex.Version searchVersion) {
     }
 }
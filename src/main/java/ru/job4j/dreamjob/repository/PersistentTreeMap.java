@@ -0,0 +1,181 @@
+package ru.job4j.dreamjob.repository;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Неизменяемое упорядоченное отображение - декартово дерево (treap). Изменение не трогает
+ * исходное дерево, а копирует только путь от корня до изменённого узла, остальные узлы общие:
+ * put и remove стоят O(log n) времени и памяти, а прежняя версия остаётся целой для тех, кто её читает.
+ * Значения не могут быть null.
+ */
+@Immutable
+final class PersistentTreeMap<K, V> {
+    private final Comparator<? super K> comparator;
+
+    private final Node<K, V> root;
+
+    private final int size;
+
+    private PersistentTreeMap(Comparator<? super K> comparator, Node<K, V> root, int size) {
+        this.comparator = comparator;
+        this.root = root;
+        this.size = size;
+    }
+
+    static <K, V> PersistentTreeMap<K, V> empty(Comparator<? super K> comparator) {
+        return new PersistentTreeMap<>(comparator, null, 0);
+    }
+
+    int size() {
+        return size;
+    }
+
+    V get(K key) {
+        var node = root;
+        while (node != null) {
+            var comparison = comparator.compare(key, node.key);
+            if (comparison == 0) {
+                return node.value;
+            }
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    PersistentTreeMap<K, V> put(K key, V value) {
+        var grows = get(key) == null;
+        var priority = ThreadLocalRandom.current().nextInt();
+        return new PersistentTreeMap<>(comparator, insert(root, key, value, priority), grows ? size + 1 : size);
+    }
+
+    PersistentTreeMap<K, V> remove(K key) {
+        if (get(key) == null) {
+            return this;
+        }
+        return new PersistentTreeMap<>(comparator, delete(root, key), size - 1);
+    }
+
+    /* значения по возрастанию ключа, начиная с from; from == null - с наименьшего */
+    Iterator<V> ascending(K from, boolean inclusive) {
+        return new NodeIterator(from, inclusive, false);
+    }
+
+    /* значения по убыванию ключа, начиная с from; from == null - с наибольшего */
+    Iterator<V> descending(K from, boolean inclusive) {
+        return new NodeIterator(from, inclusive, true);
+    }
+
+    private Node<K, V> insert(Node<K, V> node, K key, V value, int priority) {
+        if (node == null) {
+            return new Node<>(key, value, priority, null, null);
+        }
+        var comparison = comparator.compare(key, node.key);
+        if (comparison == 0) {
+            return new Node<>(key, value, node.priority, node.left, node.right);
+        }
+        if (comparison < 0) {
+            var left = insert(node.left, key, value, priority);
+            return left.priority > node.priority
+                    ? new Node<>(left.key, left.value, left.priority, left.left, node.withLeft(left.right))
+                    : node.withLeft(left);
+        }
+        var right = insert(node.right, key, value, priority);
+        return right.priority > node.priority
+                ? new Node<>(right.key, right.value, right.priority, node.withRight(right.left), right.right)
+                : node.withRight(right);
+    }
+
+    /* ключ точно есть в дереве */
+    private Node<K, V> delete(Node<K, V> node, K key) {
+        var comparison = comparator.compare(key, node.key);
+        if (comparison < 0) {
+            return node.withLeft(delete(node.left, key));
+        }
+        if (comparison > 0) {
+            return node.withRight(delete(node.right, key));
+        }
+        return merge(node.left, node.right);
+    }
+
+    /* все ключи left меньше ключей right */
+    private static <K, V> Node<K, V> merge(Node<K, V> left, Node<K, V> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        return left.priority > right.priority
+                ? left.withRight(merge(left.right, right))
+                : right.withLeft(merge(left, right.left));
+    }
+
+    private record Node<K, V>(K key, V value, int priority, Node<K, V> left, Node<K, V> right) {
+        Node<K, V> withLeft(Node<K, V> left) {
+            return new Node<>(key, value, priority, left, right);
+        }
+
+        Node<K, V> withRight(Node<K, V> right) {
+            return new Node<>(key, value, priority, left, right);
+        }
+    }
+
+    /* стек - путь к следующему узлу; для убывания дерево обходится зеркально */
+    private final class NodeIterator implements Iterator<V> {
+        private final Deque<Node<K, V>> path = new ArrayDeque<>();
+
+        private final boolean descending;
+
+        private NodeIterator(K from, boolean inclusive, boolean descending) {
+            this.descending = descending;
+            var node = root;
+            while (node != null) {
+                if (from == null || isAfter(node.key, from, inclusive)) {
+                    path.push(node);
+                    node = near(node);
+                } else {
+                    node = far(node);
+                }
+            }
+        }
+
+        private boolean isAfter(K key, K from, boolean inclusive) {
+            var comparison = comparator.compare(key, from);
+            if (descending) {
+                comparison = -comparison;
+            }
+            return inclusive ? comparison >= 0 : comparison > 0;
+        }
+
+        private Node<K, V> near(Node<K, V> node) {
+            return descending ? node.right : node.left;
+        }
+
+        private Node<K, V> far(Node<K, V> node) {
+            return descending ? node.left : node.right;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public V next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            var node = path.pop();
+            for (var next = far(node); next != null; next = near(next)) {
+                path.push(next);
+            }
+            return node.value;
+        }
+    }
+}
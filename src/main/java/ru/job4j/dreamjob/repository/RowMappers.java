@@ -0,0 +1,116 @@
+package ru.job4j.dreamjob.repository;
+
+import org.sql2o.ResultSetHandlerFactory;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.City;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Чтение моделей из результата запроса без отражения. Sql2o вызывает фабрику один раз на запрос:
+ * номера колонок находятся по метаданным, дальше каждая строка читается по номерам
+ * прямо в конструктор модели, без поиска сеттеров и преобразования имён.
+ */
+final class RowMappers {
+    static final ResultSetHandlerFactory<Vacancy> VACANCY = metaData -> {
+        var columns = new Columns(metaData);
+        var id = columns.index("id");
+        var title = columns.index("title");
+        var description = columns.index("description");
+        var creationDate = columns.index("creation_date");
+        var visible = columns.index("visible");
+        var cityId = columns.index("city_id");
+        var fileId = columns.index("file_id");
+        return resultSet -> new Vacancy(resultSet.getInt(id), resultSet.getString(title),
+                resultSet.getString(description), toLocalDateTime(resultSet.getTimestamp(creationDate)),
+                resultSet.getBoolean(visible), resultSet.getInt(cityId), resultSet.getInt(fileId));
+    };
+
+    static final ResultSetHandlerFactory<Candidate> CANDIDATE = metaData -> {
+        var columns = new Columns(metaData);
+        var id = columns.index("id");
+        var name = columns.index("name");
+        var description = columns.index("description");
+        var creationDate = columns.index("creation_date");
+        var fileId = columns.index("file_id");
+        return resultSet -> new Candidate(resultSet.getInt(id), resultSet.getString(name),
+                resultSet.getString(description), toLocalDateTime(resultSet.getTimestamp(creationDate)),
+                resultSet.getInt(fileId));
+    };
+
+    static final ResultSetHandlerFactory<File> FILE = metaData -> {
+        var columns = new Columns(metaData);
+        var id = columns.index("id");
+        var name = columns.index("name");
+        var path = columns.index("path");
+        var size = columns.index("size");
+        var checksum = columns.index("checksum");
+        var contentType = columns.index("content_type");
+        var width = columns.index("width");
+        var height = columns.index("height");
+        var creationDate = columns.index("creation_date");
+        return resultSet -> {
+            var file = new File(resultSet.getString(name), resultSet.getString(path));
+            file.setId(resultSet.getInt(id));
+            file.setSize(resultSet.getLong(size));
+            file.setChecksum(resultSet.getString(checksum));
+            file.setContentType(resultSet.getString(contentType));
+            file.setWidth(resultSet.getInt(width));
+            file.setHeight(resultSet.getInt(height));
+            file.setCreationDate(toLocalDateTime(resultSet.getTimestamp(creationDate)));
+            return file;
+        };
+    };
+
+    static final ResultSetHandlerFactory<City> CITY = metaData -> {
+        var columns = new Columns(metaData);
+        var id = columns.index("id");
+        var name = columns.index("name");
+        return resultSet -> new City(resultSet.getInt(id), resultSet.getString(name));
+    };
+
+    static final ResultSetHandlerFactory<User> USER = metaData -> {
+        var columns = new Columns(metaData);
+        var id = columns.index("id");
+        var name = columns.index("name");
+        var email = columns.index("email");
+        var password = columns.index("password");
+        return resultSet -> new User(resultSet.getInt(id), resultSet.getString(name),
+                resultSet.getString(email), resultSet.getString(password));
+    };
+
+    private RowMappers() {
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    /* имена сравниваются без учёта регистра: H2 отдаёт их заглавными, Postgres - строчными */
+    private static final class Columns {
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        private Columns(ResultSetMetaData metaData) throws SQLException {
+            for (var i = 1; i <= metaData.getColumnCount(); i++) {
+                indexes.putIfAbsent(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+            }
+        }
+
+        private int index(String name) throws SQLException {
+            var index = indexes.get(name);
+            if (index == null) {
+                throw new SQLException("Column " + name + " is missing in the result");
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.job4j.dreamjob.repository;
+
+import org.postgresql.PGConnection;
+import org.sql2o.Connection;
+import org.sql2o.ResultSetIterable;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.ReplicaRouting;
+
+import java.sql.SQLException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Обход больших выборок по одной строке. Postgres отдаёт строки порциями, только если запрос
+ * выполняется внутри транзакции и у соединения задан размер порции; иначе драйвер читает
+ * весь результат в память ещё до первой строки. Размер порции возвращается прежним,
+ * потому что соединение уходит обратно в пул.
+ */
+final class ServerSideCursor {
+    static final int FETCH_SIZE = 500;
+
+    private ServerSideCursor() {
+    }
+
+    static <T> void forEach(Sql2o sql2o, Function<Connection, ResultSetIterable<T>> query, Consumer<T> action) {
+        try (var connection = ReplicaRouting.read(sql2o::beginTransaction)) {
+            var jdbcConnection = connection.getJdbcConnection();
+            var postgres = jdbcConnection.isWrapperFor(PGConnection.class)
+                    ? jdbcConnection.unwrap(PGConnection.class) : null;
+            var previousFetchSize = postgres == null ? 0 : postgres.getDefaultFetchSize();
+            if (postgres != null) {
+                postgres.setDefaultFetchSize(FETCH_SIZE);
+            }
+            try (var rows = query.apply(connection)) {
+                rows.forEach(action);
+            } finally {
+                if (postgres != null) {
+                    postgres.setDefaultFetchSize(previousFetchSize);
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -1,20 +1,58 @@
 package ru.job4j.dreamjob.repository;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Repository;
 import org.sql2o.Connection;
 import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.ReplicaRouting;
+import ru.job4j.dreamjob.dto.Cursor;
 import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.CandidateSummary;
+import ru.job4j.dreamjob.search.LoadingSearchIndex;
+import ru.job4j.dreamjob.search.SearchIndex;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+/**
+ * Поиск кандидатов по умолчанию (search.engine=index) идёт по {@link LoadingSearchIndex} в памяти:
+ * он загружается с основной БД в фоне при старте, а пока загружается, ищет Postgres.
+ * С search.engine=database ищет Postgres по колонке search_vector, индекс в памяти не загружается;
+ * в других базах, например H2 в тестах, полнотекстового поиска нет, и индекс используется всегда.
+ * Индекс в памяти свой у каждого процесса: если приложение запущено в нескольких экземплярах, нужен database.
+ *
+ * Индекс обновляется здесь, а не в сервисе: так его не обойдёт ни одна запись, в том числе сделанная мимо сервиса.
+ */
 @Repository
-public class Sql2oCandidateRepository implements CandidateRepository {
+public class Sql2oCandidateRepository implements CandidateRepository, ApplicationRunner {
 
     private final Sql2o sql2o;
 
-    public Sql2oCandidateRepository(Sql2o sql2o) {
+    private final boolean databaseSearch;
+
+    private final LoadingSearchIndex searchIndex = new LoadingSearchIndex("candidate-search-index", this::loadSearchIndex);
+
+    /* в Postgres - полнотекстовый поиск и DELETE ... RETURNING */
+    private volatile Boolean postgres;
+
+    public Sql2oCandidateRepository(Sql2o sql2o, @Value("${search.engine}") String searchEngine) {
         this.sql2o = sql2o;
+        this.databaseSearch = "database".equals(searchEngine);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!databaseSearch || !isPostgres()) {
+            searchIndex.load();
+        }
     }
 
     @Override
@@ -31,17 +69,26 @@ public class Sql2oCandidateRepository implements CandidateRepository {
                     .addParameter("fileId", candidate.getFileId());
             int generatedId = query.executeUpdate().getKey(Integer.class);
             candidate.setId(generatedId);
+            updateSearchIndex(candidate);
             return candidate;
         }
     }
 
     @Override
-    public boolean deleteById(int id) {
-        try (Connection connection = sql2o.open()) {
-            var query = connection.createQuery("DELETE FROM candidates WHERE id = :id");
-            query.addParameter("id", id);
-            int affectedRows = query.executeUpdate().getResult();
-            return affectedRows > 0;
+    public Optional<Integer> deleteReturningFileId(int id) {
+        var sql = isPostgres()
+                ? "DELETE FROM candidates WHERE id = :id RETURNING file_id"
+                : "SELECT file_id FROM OLD TABLE (DELETE FROM candidates WHERE id = :id)";
+        try (var connection = sql2o.open()) {
+            var fileIds = connection.createQuery(sql)
+                    .addParameter("id", id)
+                    .executeScalarList(Integer.class);
+            removeFromSearchIndex(id);
+            if (fileIds.isEmpty()) {
+                return Optional.empty();
+            }
+            var fileId = fileIds.get(0);
+            return Optional.of(fileId == null ? 0 : fileId);
         }
     }
 
@@ -60,25 +107,145 @@ public class Sql2oCandidateRepository implements CandidateRepository {
                     .addParameter("fileId", candidate.getFileId())
                     .addParameter("id", candidate.getId());
             int affectedRows = query.executeUpdate().getResult();
+            if (affectedRows > 0) {
+                updateSearchIndex(candidate);
+            }
             return affectedRows > 0;
         }
     }
 
     @Override
     public Optional<Candidate> findById(int id) {
-        try (Connection connection = sql2o.open()) {
+        try (Connection connection = ReplicaRouting.read(sql2o::open)) {
             var query = connection.createQuery("SELECT * FROM candidates WHERE id = :id");
             query.addParameter("id", id);
-            var candidate = query.setColumnMappings(Candidate.COLUMN_MAPPING).executeAndFetchFirst(Candidate.class);
+            var candidate = query.executeAndFetchFirst(RowMappers.CANDIDATE);
             return Optional.ofNullable(candidate);
         }
     }
 
     @Override
     public Collection<Candidate> findAll() {
-        try (Connection connection = sql2o.open()) {
+        try (Connection connection = ReplicaRouting.read(sql2o::open)) {
             var query = connection.createQuery("SELECT * FROM candidates");
-            return query.setColumnMappings(Candidate.COLUMN_MAPPING).executeAndFetch(Candidate.class);
+            return query.executeAndFetch(RowMappers.CANDIDATE);
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<Candidate> action) {
+        ServerSideCursor.forEach(sql2o, connection -> connection.createQuery("SELECT * FROM candidates ORDER BY id")
+                .executeAndFetchLazy(RowMappers.CANDIDATE), action);
+    }
+
+    @Override
+    public List<CandidateSummary> findSummariesAfter(Cursor cursor, int limit) {
+        var sql = "SELECT id, name, creation_date FROM candidates "
+                + (cursor == null ? "" : "WHERE (creation_date, id) < (:creationDate, :id) ")
+                + "ORDER BY creation_date DESC, id DESC LIMIT :limit";
+        return findPage(sql, cursor, limit);
+    }
+
+    @Override
+    public List<CandidateSummary> findSummariesBefore(Cursor cursor, int limit) {
+        /* читаем в обратном порядке, чтобы индекс отдал ближайшие к курсору строки, и разворачиваем */
+        var sql = """
+                SELECT id, name, creation_date FROM candidates
+                WHERE (creation_date, id) > (:creationDate, :id)
+                ORDER BY creation_date, id
+                LIMIT :limit
+                """;
+        var page = findPage(sql, cursor, limit);
+        Collections.reverse(page);
+        return page;
+    }
+
+    private List<CandidateSummary> findPage(String sql, Cursor cursor, int limit) {
+        try (Connection connection = ReplicaRouting.read(sql2o::open)) {
+            var query = connection.createQuery(sql).addParameter("limit", limit);
+            if (cursor != null) {
+                query.addParameter("creationDate", cursor.creationDate())
+                        .addParameter("id", cursor.id());
+            }
+            return query.executeAndFetch(this::toSummary);
         }
     }
+
+    /* колонок всего несколько - собираем запись напрямую, без рефлексии */
+    private CandidateSummary toSummary(ResultSet resultSet) throws SQLException {
+        return new CandidateSummary(
+                resultSet.getInt("id"),
+                resultSet.getString("name"),
+                resultSet.getTimestamp("creation_date").toLocalDateTime()
+        );
+    }
+
+    @Override
+    public List<CandidateSummary> search(String query, int offset, int limit) {
+        if (!isPostgres() || !databaseSearch && searchIndex.isLoaded()) {
+            return findSummariesByIds(searchIndex.search(query, offset, limit));
+        }
+        if (!databaseSearch) {
+            searchIndex.load();
+        }
+        return searchDatabase(query, offset, limit);
+    }
+
+    private List<CandidateSummary> searchDatabase(String query, int offset, int limit) {
+        try (var connection = ReplicaRouting.read(sql2o::open)) {
+            var sql = """
+                    SELECT id, name, creation_date
+                    FROM candidates, websearch_to_tsquery('russian', :query) search_query
+                    WHERE search_vector @@ search_query
+                    ORDER BY ts_rank(search_vector, search_query) DESC, id DESC
+                    LIMIT :limit OFFSET :offset
+                    """;
+            return connection.createQuery(sql)
+                    .addParameter("query", query)
+                    .addParameter("limit", limit)
+                    .addParameter("offset", offset)
+                    .executeAndFetch(this::toSummary);
+        }
+    }
+
+    private List<CandidateSummary> findSummariesByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        try (var connection = ReplicaRouting.read(sql2o::open)) {
+            var summaries = connection.createQuery("SELECT id, name, creation_date FROM candidates WHERE id IN (:ids)")
+                    .addParameter("ids", ids)
+                    .executeAndFetch(this::toSummary);
+            summaries.sort(Comparator.comparingInt(summary -> ids.indexOf(summary.id())));
+            return summaries;
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            try (var connection = ReplicaRouting.read(sql2o::open)) {
+                var productName = connection.getJdbcConnection().getMetaData().getDatabaseProductName();
+                postgres = "PostgreSQL".equals(productName);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return postgres;
+    }
+
+    /* с основной БД: отставшая реплика вернула бы строки без последних изменений, а индекс общий для всех */
+    private void loadSearchIndex(SearchIndex index) {
+        ReplicaRouting.primary(() -> {
+            forEach(candidate -> index.put(candidate.getId(), candidate.getName(), candidate.getDescription()));
+            return null;
+        });
+    }
+
+    private void updateSearchIndex(Candidate candidate) {
+        searchIndex.put(candidate.getId(), candidate.getName(), candidate.getDescription());
+    }
+
+    private void removeFromSearchIndex(int id) {
+        searchIndex.remove(id);
+    }
 }
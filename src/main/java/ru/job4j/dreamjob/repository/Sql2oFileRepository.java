@@ -2,13 +2,22 @@ package ru.job4j.dreamjob.repository;
 
 import org.springframework.stereotype.Repository;
 import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.ReplicaRouting;
 import ru.job4j.dreamjob.model.File;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public class Sql2oFileRepository implements FileRepository {
 
+    private static final String COLUMNS = "id, name, path, size, checksum, content_type, width, height, creation_date";
+
     private final Sql2o sql2o;
 
     public Sql2oFileRepository(Sql2o sql2o) {
@@ -18,9 +27,19 @@ public class Sql2oFileRepository implements FileRepository {
     @Override
     public File save(File file) {
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery("INSERT INTO files (name, path) VALUES (:name, :path)", true)
+            var sql = """
+                    INSERT INTO files (name, path, size, checksum, content_type, width, height, creation_date)
+                    VALUES (:name, :path, :size, :checksum, :contentType, :width, :height, :creationDate)
+                    """;
+            var query = connection.createQuery(sql, true)
                     .addParameter("name", file.getName())
-                    .addParameter("path", file.getPath());
+                    .addParameter("path", file.getPath())
+                    .addParameter("size", file.getSize())
+                    .addParameter("checksum", file.getChecksum())
+                    .addParameter("contentType", file.getContentType())
+                    .addParameter("width", file.getWidth())
+                    .addParameter("height", file.getHeight())
+                    .addParameter("creationDate", file.getCreationDate());
             int generatedId = query.executeUpdate().getKey(Integer.class);
             file.setId(generatedId);
             return file;
@@ -29,13 +48,60 @@ public class Sql2oFileRepository implements FileRepository {
 
     @Override
     public Optional<File> findById(int id) {
+        try (var connection = ReplicaRouting.read(sql2o::open)) {
+            var query = connection.createQuery("SELECT " + COLUMNS + " FROM files WHERE id = :id");
+            var file = query.addParameter("id", id)
+                    .executeAndFetchFirst(RowMappers.FILE);
+            return Optional.ofNullable(file);
+        }
+    }
+
+    @Override
+    public Optional<File> findByChecksum(String checksum) {
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM files WHERE id = :id");
-            var file = query.addParameter("id", id).executeAndFetchFirst(File.class);
+            var query = connection.createQuery("SELECT " + COLUMNS + " FROM files WHERE checksum = :checksum ORDER BY id");
+            var file = query.addParameter("checksum", checksum)
+                    .executeAndFetchFirst(RowMappers.FILE);
             return Optional.ofNullable(file);
         }
     }
 
+    @Override
+    public List<File> findByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery("SELECT " + COLUMNS + " FROM files WHERE id IN (:ids)");
+            return query.addParameter("ids", ids)
+                    .executeAndFetch(RowMappers.FILE);
+        }
+    }
+
+    @Override
+    public boolean addReference(int id) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery("UPDATE files SET ref_count = ref_count + 1 WHERE id = :id");
+            int affectedRows = query.addParameter("id", id).executeUpdate().getResult();
+            return affectedRows > 0;
+        }
+    }
+
+    @Override
+    public boolean removeReference(int id) {
+        try (var connection = sql2o.beginTransaction()) {
+            connection.createQuery("UPDATE files SET ref_count = ref_count - 1 WHERE id = :id")
+                    .addParameter("id", id)
+                    .executeUpdate();
+            int deletedRows = connection.createQuery("DELETE FROM files WHERE id = :id AND ref_count <= 0")
+                    .addParameter("id", id)
+                    .executeUpdate()
+                    .getResult();
+            connection.commit();
+            return deletedRows > 0;
+        }
+    }
+
     @Override
     public void deleteById(int id) {
         try (var connection = sql2o.open()) {
@@ -43,4 +109,40 @@ public class Sql2oFileRepository implements FileRepository {
             query.addParameter("id", id).executeUpdate();
         }
     }
+
+    @Override
+    public List<File> findAfterId(int id, int limit) {
+        try (var connection = ReplicaRouting.read(sql2o::open)) {
+            var query = connection.createQuery("SELECT " + COLUMNS + " FROM files WHERE id > :id ORDER BY id LIMIT :limit");
+            return query.addParameter("id", id)
+                    .addParameter("limit", limit)
+                    .executeAndFetch(RowMappers.FILE);
+        }
+    }
+
+    @Override
+    public Set<Integer> updatePaths(Map<Integer, String> paths) {
+        if (paths.isEmpty()) {
+            return Set.of();
+        }
+        try (var connection = sql2o.beginTransaction()) {
+            var query = connection.createQuery("UPDATE files SET path = :path WHERE id = :id");
+            var ids = new ArrayList<>(paths.keySet());
+            for (var id : ids) {
+                query.addParameter("path", paths.get(id))
+                        .addParameter("id", id)
+                        .addToBatch();
+            }
+            query.executeBatch();
+            var results = connection.getBatchResult();
+            connection.commit();
+            var updated = new HashSet<Integer>();
+            for (int i = 0; i < ids.size(); i++) {
+                if (results[i] > 0) {
+                    updated.add(ids.get(i));
+                }
+            }
+            return updated;
+        }
+    }
 }
@@ -3,6 +3,7 @@ package ru.job4j.dreamjob.repository;
 import org.springframework.stereotype.Repository;
 import org.sql2o.Sql2o;
 import org.sql2o.Sql2oException;
+import ru.job4j.dreamjob.configuration.ReplicaRouting;
 import ru.job4j.dreamjob.model.User;
 
 import java.util.Optional;
@@ -37,14 +38,14 @@ public class Sql2oUserRepository implements UserRepository {
 
     @Override
     public Optional<User> findByEmailAndPassword(String email, String password) {
-        try (var connection = sql2o.open()) {
+        try (var connection = ReplicaRouting.read(sql2o::open)) {
             var sql = """
                     SELECT * FROM users WHERE email = :email and password = :password
                     """;
             var query = connection.createQuery(sql)
                     .addParameter("email", email)
                     .addParameter("password", password);
-            var user = query.executeAndFetchFirst(User.class);
+            var user = query.executeAndFetchFirst(RowMappers.USER);
             return Optional.ofNullable(user);
         }
     }
@@ -1,48 +1,133 @@
 package ru.job4j.dreamjob.repository;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Repository;
+import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.ReplicaRouting;
+import ru.job4j.dreamjob.dto.Cursor;
+import ru.job4j.dreamjob.dto.VacancyFilter;
 import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.model.VacancySummary;
+import ru.job4j.dreamjob.search.LoadingSearchIndex;
+import ru.job4j.dreamjob.search.SearchIndex;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+/**
+ * Поиск вакансий по умолчанию (search.engine=index) идёт по {@link LoadingSearchIndex} в памяти:
+ * он загружается с основной БД в фоне при старте, а пока загружается, ищет Postgres.
+ * С search.engine=database ищет Postgres по колонке search_vector, индекс в памяти не загружается;
+ * в других базах, например H2 в тестах, полнотекстового поиска нет, и индекс используется всегда.
+ * Индекс в памяти свой у каждого процесса: если приложение запущено в нескольких экземплярах, нужен database.
+ *
+ * Индекс обновляется здесь, а не в сервисе: сюда приходят все записи, в том числе пакетная загрузка
+ * {@link ru.job4j.dreamjob.service.VacancyImporter}, которая идёт мимо сервиса.
+ */
 @Repository
-public class Sql2oVacancyRepository implements VacancyRepository {
+public class Sql2oVacancyRepository implements VacancyRepository, ApplicationRunner {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO vacancies(title, description, creation_date, visible, city_id, file_id)
+            VALUES (:title, :description, :creationDate, :visible, :cityId, :fileId)
+            """;
+
+    /* название города берётся тем же запросом, чтобы список не искал города построчно */
+    private static final String SUMMARY_SELECT = "SELECT v.id, v.title, v.creation_date, v.visible, c.name AS city_name"
+            + " FROM vacancies v LEFT JOIN cities c ON c.id = v.city_id";
 
     private final Sql2o sql2o;
 
-    public Sql2oVacancyRepository(Sql2o sql2o) {
+    private final boolean databaseSearch;
+
+    private final LoadingSearchIndex searchIndex = new LoadingSearchIndex("vacancy-search-index", this::loadSearchIndex);
+
+    /* в Postgres - полнотекстовый поиск и DELETE ... RETURNING */
+    private volatile Boolean postgres;
+
+    public Sql2oVacancyRepository(Sql2o sql2o, @Value("${search.engine}") String searchEngine) {
         this.sql2o = sql2o;
+        this.databaseSearch = "database".equals(searchEngine);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!databaseSearch || !isPostgres()) {
+            searchIndex.load();
+        }
     }
 
     @Override
     public Vacancy save(Vacancy vacancy) {
         try (var connection = sql2o.open()) {
-            var sql = """
-                      INSERT INTO vacancies(title, description, creation_date, visible, city_id, file_id)
-                      VALUES (:title, :description, :creationDate, :visible, :cityId, :fileId)
-                      """;
-            var query = connection.createQuery(sql, true)
-                    .addParameter("title", vacancy.getTitle())
-                    .addParameter("description", vacancy.getDescription())
-                    .addParameter("creationDate", vacancy.getCreationDate())
-                    .addParameter("visible", vacancy.getVisible())
-                    .addParameter("cityId", vacancy.getCityId())
-                    .addParameter("fileId", vacancy.getFileId());
+            var query = addInsertParameters(connection.createQuery(INSERT_SQL, true), vacancy);
             int generatedId = query.executeUpdate().getKey(Integer.class);
             vacancy.setId(generatedId);
+            updateSearchIndex(vacancy);
             return vacancy;
         }
     }
 
     @Override
-    public boolean deleteById(int id) {
+    public List<Vacancy> saveAll(List<Vacancy> vacancies) {
+        if (vacancies.isEmpty()) {
+            return vacancies;
+        }
+        try (var connection = sql2o.beginTransaction()) {
+            var query = connection.createQuery(INSERT_SQL, true);
+            for (var vacancy : vacancies) {
+                addInsertParameters(query, vacancy).addToBatch();
+            }
+            var generatedIds = query.executeBatch().getKeys(Integer.class);
+            connection.commit();
+            for (var i = 0; i < vacancies.size(); i++) {
+                vacancies.get(i).setId(generatedIds.get(i));
+                updateSearchIndex(vacancies.get(i));
+            }
+            return vacancies;
+        }
+    }
+
+    private Query addInsertParameters(Query query, Vacancy vacancy) {
+        return query.addParameter("title", vacancy.getTitle())
+                .addParameter("description", vacancy.getDescription())
+                .addParameter("creationDate", vacancy.getCreationDate())
+                .addParameter("visible", vacancy.getVisible())
+                .addParameter("cityId", vacancy.getCityId())
+                .addParameter("fileId", getFileId(vacancy));
+    }
+
+    /* у вакансий, загруженных без картинки, file_id пуст */
+    private Integer getFileId(Vacancy vacancy) {
+        return vacancy.getFileId() == 0 ? null : vacancy.getFileId();
+    }
+
+    @Override
+    public Optional<Integer> deleteReturningFileId(int id) {
+        var sql = isPostgres()
+                ? "DELETE FROM vacancies WHERE id = :id RETURNING file_id"
+                : "SELECT file_id FROM OLD TABLE (DELETE FROM vacancies WHERE id = :id)";
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery("DELETE FROM vacancies WHERE id = :id");
-            query.addParameter("id", id);
-            int affectedRows = query.executeUpdate().getResult();
-            return affectedRows > 0;
+            var fileIds = connection.createQuery(sql)
+                    .addParameter("id", id)
+                    .executeScalarList(Integer.class);
+            removeFromSearchIndex(id);
+            if (fileIds.isEmpty()) {
+                return Optional.empty();
+            }
+            var fileId = fileIds.get(0);
+            return Optional.of(fileId == null ? 0 : fileId);
         }
     }
 
@@ -61,28 +146,199 @@ public class Sql2oVacancyRepository implements VacancyRepository {
                     .addParameter("creationDate", vacancy.getCreationDate())
                     .addParameter("visible", vacancy.getVisible())
                     .addParameter("cityId", vacancy.getCityId())
-                    .addParameter("fileId", vacancy.getFileId())
+                    .addParameter("fileId", getFileId(vacancy))
                     .addParameter("id", vacancy.getId());
             var affectedRows = query.executeUpdate().getResult();
+            if (affectedRows > 0) {
+                updateSearchIndex(vacancy);
+            }
             return affectedRows > 0;
         }
     }
 
     @Override
     public Optional<Vacancy> findById(int id) {
-        try (var connection = sql2o.open()) {
+        try (var connection = ReplicaRouting.read(sql2o::open)) {
             var query = connection.createQuery("SELECT * FROM vacancies WHERE id = :id");
             query.addParameter("id", id);
-            var vacancy = query.setColumnMappings(Vacancy.COLUMN_MAPPING).executeAndFetchFirst(Vacancy.class);
+            var vacancy = query.executeAndFetchFirst(RowMappers.VACANCY);
             return Optional.ofNullable(vacancy);
         }
     }
 
     @Override
     public Collection<Vacancy> findAll() {
-        try (var connection = sql2o.open()) {
+        try (var connection = ReplicaRouting.read(sql2o::open)) {
             var query = connection.createQuery("SELECT * FROM vacancies");
-            return query.setColumnMappings(Vacancy.COLUMN_MAPPING).executeAndFetch(Vacancy.class);
+            return query.executeAndFetch(RowMappers.VACANCY);
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<Vacancy> action) {
+        ServerSideCursor.forEach(sql2o, connection -> connection.createQuery("SELECT * FROM vacancies ORDER BY id")
+                .executeAndFetchLazy(RowMappers.VACANCY), action);
+    }
+
+    @Override
+    public List<VacancySummary> findSummariesAfter(VacancyFilter filter, Cursor cursor, int limit) {
+        try (var connection = ReplicaRouting.read(sql2o::open)) {
+            return createSummariesQuery(connection, "", filter, cursor, false, limit)
+                    .executeAndFetch(this::toSummary);
+        }
+    }
+
+    @Override
+    public List<VacancySummary> findSummariesBefore(VacancyFilter filter, Cursor cursor, int limit) {
+        try (var connection = ReplicaRouting.read(sql2o::open)) {
+            var page = createSummariesQuery(connection, "", filter, cursor, true, limit)
+                    .executeAndFetch(this::toSummary);
+            Collections.reverse(page);
+            return page;
         }
     }
+
+    /* план запроса страницы - для проверки, что отбор идёт по индексам */
+    String explainSummaries(VacancyFilter filter, Cursor cursor, int limit) {
+        try (var connection = ReplicaRouting.read(sql2o::open)) {
+            return String.join("\n", createSummariesQuery(connection, "EXPLAIN ", filter, cursor, false, limit)
+                    .executeScalarList(String.class));
+        }
+    }
+
+    /**
+     * Страница читается в порядке списка, а предшествующие курсору строки (backward) - в обратном,
+     * чтобы индекс отдал ближайшие к курсору строки первыми; вызывающий разворачивает их сам.
+     */
+    private Query createSummariesQuery(Connection connection, String prefix, VacancyFilter filter,
+                                       Cursor cursor, boolean backward, int limit) {
+        var conditions = new ArrayList<String>();
+        if (filter.cityId() != null) {
+            conditions.add("v.city_id = :cityId");
+        }
+        if (filter.visible() != null) {
+            conditions.add("v.visible = :visible");
+        }
+        if (filter.from() != null) {
+            conditions.add("v.creation_date >= :from");
+        }
+        if (filter.to() != null) {
+            conditions.add("v.creation_date < :to");
+        }
+        var ascending = filter.isAscending() != backward;
+        if (cursor != null) {
+            /* первое условие избыточно, но по нему H2 может взять индекс - сравнение строк он по индексу не ищет */
+            var comparison = ascending ? ">" : "<";
+            conditions.add("v.creation_date " + comparison + "= :creationDate");
+            conditions.add("(v.creation_date, v.id) " + comparison + " (:creationDate, :id)");
+        }
+        var direction = ascending ? "ASC" : "DESC";
+        var sql = prefix + SUMMARY_SELECT
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + " ORDER BY v.creation_date " + direction + ", v.id " + direction + " LIMIT :limit";
+        var query = connection.createQuery(sql).addParameter("limit", limit);
+        addFilterParameters(query, filter);
+        if (cursor != null) {
+            query.addParameter("creationDate", cursor.creationDate())
+                    .addParameter("id", cursor.id());
+        }
+        return query;
+    }
+
+    private void addFilterParameters(Query query, VacancyFilter filter) {
+        if (filter.cityId() != null) {
+            query.addParameter("cityId", filter.cityId());
+        }
+        if (filter.visible() != null) {
+            query.addParameter("visible", filter.visible());
+        }
+        if (filter.from() != null) {
+            query.addParameter("from", filter.from().atStartOfDay());
+        }
+        if (filter.to() != null) {
+            query.addParameter("to", filter.to().plusDays(1).atStartOfDay());
+        }
+    }
+
+    /* колонок всего несколько - собираем запись напрямую, без рефлексии */
+    private VacancySummary toSummary(ResultSet resultSet) throws SQLException {
+        return new VacancySummary(
+                resultSet.getInt("id"),
+                resultSet.getString("title"),
+                resultSet.getTimestamp("creation_date").toLocalDateTime(),
+                resultSet.getBoolean("visible"),
+                resultSet.getString("city_name")
+        );
+    }
+
+    @Override
+    public List<VacancySummary> search(String query, int offset, int limit) {
+        if (!isPostgres() || !databaseSearch && searchIndex.isLoaded()) {
+            return findSummariesByIds(searchIndex.search(query, offset, limit));
+        }
+        if (!databaseSearch) {
+            searchIndex.load();
+        }
+        return searchDatabase(query, offset, limit);
+    }
+
+    private List<VacancySummary> searchDatabase(String query, int offset, int limit) {
+        try (var connection = ReplicaRouting.read(sql2o::open)) {
+            var sql = """
+                    SELECT v.id, v.title, v.creation_date, v.visible, c.name AS city_name
+                    FROM vacancies v
+                    CROSS JOIN websearch_to_tsquery('russian', :query) search_query
+                    LEFT JOIN cities c ON c.id = v.city_id
+                    WHERE v.search_vector @@ search_query
+                    ORDER BY ts_rank(v.search_vector, search_query) DESC, v.id DESC
+                    LIMIT :limit OFFSET :offset
+                    """;
+            return connection.createQuery(sql)
+                    .addParameter("query", query)
+                    .addParameter("limit", limit)
+                    .addParameter("offset", offset)
+                    .executeAndFetch(this::toSummary);
+        }
+    }
+
+    private List<VacancySummary> findSummariesByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        try (var connection = ReplicaRouting.read(sql2o::open)) {
+            var summaries = connection.createQuery(SUMMARY_SELECT + " WHERE v.id IN (:ids)")
+                    .addParameter("ids", ids)
+                    .executeAndFetch(this::toSummary);
+            summaries.sort(Comparator.comparingInt(summary -> ids.indexOf(summary.id())));
+            return summaries;
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            try (var connection = ReplicaRouting.read(sql2o::open)) {
+                var productName = connection.getJdbcConnection().getMetaData().getDatabaseProductName();
+                postgres = "PostgreSQL".equals(productName);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return postgres;
+    }
+
+    /* с основной БД: отставшая реплика вернула бы строки без последних изменений, а индекс общий для всех */
+    private void loadSearchIndex(SearchIndex index) {
+        ReplicaRouting.primary(() -> {
+            forEach(vacancy -> index.put(vacancy.getId(), vacancy.getTitle(), vacancy.getDescription()));
+            return null;
+        });
+    }
+
+    private void updateSearchIndex(Vacancy vacancy) {
+        searchIndex.put(vacancy.getId(), vacancy.getTitle(), vacancy.getDescription());
+    }
+
+    private void removeFromSearchIndex(int id) {
+        searchIndex.remove(id);
+    }
 }
@@ -1,18 +1,43 @@
 package ru.job4j.dreamjob.repository;
 
+import ru.job4j.dreamjob.dto.Cursor;
+import ru.job4j.dreamjob.dto.VacancyFilter;
 import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.model.VacancySummary;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface VacancyRepository {
     Vacancy save(Vacancy vacancy);
 
-    boolean deleteById(int id);
+    /* сохраняет все вакансии одной транзакцией, либо ни одной; id проставляются в переданные объекты */
+    List<Vacancy> saveAll(List<Vacancy> vacancies);
+
+    /* удаляет одним запросом и возвращает file_id удалённой записи (0 - без файла); пусто, если записи не было */
+    Optional<Integer> deleteReturningFileId(int id);
+
+    default boolean deleteById(int id) {
+        return deleteReturningFileId(id).isPresent();
+    }
 
     boolean update(Vacancy vacancy);
 
     Optional<Vacancy> findById(int id);
 
     Collection<Vacancy> findAll();
+
+    /* обходит все вакансии по возрастанию id, не загружая их в память разом */
+    void forEach(Consumer<Vacancy> action);
+
+    /* список отобран и упорядочен по (creation_date, id) согласно filter; без курсора - с начала списка */
+    List<VacancySummary> findSummariesAfter(VacancyFilter filter, Cursor cursor, int limit);
+
+    /* не более limit строк, непосредственно предшествующих курсору, в порядке списка */
+    List<VacancySummary> findSummariesBefore(VacancyFilter filter, Cursor cursor, int limit);
+
+    /* найденные по словам запроса, самые подходящие первыми */
+    List<VacancySummary> search(String query, int offset, int limit);
 }
@@ -0,0 +1,37 @@
+package ru.job4j.dreamjob.search;
+
+import java.util.Arrays;
+
+/**
+ * Растущий массив int без упаковки в Integer - из таких собираются списки вхождений.
+ */
+final class IntList {
+    private int[] values = new int[4];
+
+    private int size;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    void addAll(int[] source, int from, int to) {
+        for (var i = from; i < to; i++) {
+            add(source[i]);
+        }
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
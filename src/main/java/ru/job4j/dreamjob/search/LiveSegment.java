@@ -0,0 +1,21 @@
+package ru.job4j.dreamjob.search;
+
+/**
+ * Сегмент с отметками удалённых документов. Отметки копируются при каждом удалении,
+ * поэтому читатель, получивший ссылку, видит неизменное состояние.
+ */
+record LiveSegment(Segment segment, long[] deleted, int liveCount) {
+    static LiveSegment of(Segment segment) {
+        return new LiveSegment(segment, new long[(segment.size() + 63) / 64], segment.size());
+    }
+
+    boolean isLive(int doc) {
+        return (deleted[doc >>> 6] & 1L << doc) == 0;
+    }
+
+    LiveSegment delete(int doc) {
+        var copy = deleted.clone();
+        copy[doc >>> 6] |= 1L << doc;
+        return new LiveSegment(segment, copy, liveCount - 1);
+    }
+}
@@ -0,0 +1,140 @@
+package ru.job4j.dreamjob.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * {@link SearchIndex}, который заполняется всеми документами в фоновом потоке, не задерживая запись.
+ * До начала загрузки put и remove отбрасываются: загрузка и так прочитает эти строки из базы.
+ * Во время загрузки они только запоминаются и после неё применяются поверх загруженного,
+ * так что строка, изменённая во время загрузки, окажется в индексе в последней версии.
+ * Загруженный индекс публикуется через volatile-поле, поиск по нему блокировок не берёт.
+ * Если загрузка упала, всё возвращается к началу, и следующий {@link #load()} начнёт её заново.
+ */
+@ThreadSafe
+public class LoadingSearchIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(LoadingSearchIndex.class);
+
+    private final String name;
+
+    private final Consumer<SearchIndex> loader;
+
+    private final Object lock = new Object();
+
+    /* под lock; pending == null - загрузка не идёт */
+    private CompletableFuture<SearchIndex> loading;
+
+    private Map<Integer, String[]> pending;
+
+    private volatile SearchIndex index;
+
+    /* loader кладёт в переданный индекс все документы; name - имя фонового потока */
+    public LoadingSearchIndex(String name, Consumer<SearchIndex> loader) {
+        this.name = name;
+        this.loader = loader;
+    }
+
+    /* начинает загрузку, если она ещё не начата; повторный вызов возвращает ту же загрузку */
+    public CompletableFuture<SearchIndex> load() {
+        synchronized (lock) {
+            if (loading == null) {
+                var result = new CompletableFuture<SearchIndex>();
+                var thread = new Thread(() -> fill(result), name);
+                thread.setDaemon(true);
+                pending = new LinkedHashMap<>();
+                loading = result;
+                thread.start();
+            }
+            return loading;
+        }
+    }
+
+    public boolean isLoaded() {
+        return index != null;
+    }
+
+    /* до окончания загрузки ждёт её */
+    public List<Integer> search(String text, int offset, int limit) {
+        var current = index;
+        if (current == null) {
+            current = load().join();
+        }
+        return current.search(text, offset, limit);
+    }
+
+    public void put(int id, String... fields) {
+        if (!defer(id, fields)) {
+            index.put(id, fields);
+        }
+    }
+
+    public void remove(int id) {
+        if (!defer(id, null)) {
+            index.remove(id);
+        }
+    }
+
+    /* false - индекс загружен и изменение надо применить сразу */
+    private boolean defer(int id, String[] fields) {
+        if (index != null) {
+            return false;
+        }
+        synchronized (lock) {
+            if (index != null) {
+                return false;
+            }
+            if (pending != null) {
+                pending.remove(id);
+                pending.put(id, fields);
+            }
+            return true;
+        }
+    }
+
+    private void fill(CompletableFuture<SearchIndex> result) {
+        var loaded = new SearchIndex();
+        try {
+            loader.accept(loaded);
+        } catch (RuntimeException e) {
+            LOG.warn("Search index {} was not loaded", name, e);
+            synchronized (lock) {
+                loading = null;
+                pending = null;
+            }
+            result.completeExceptionally(e);
+            return;
+        }
+        applyPending(loaded);
+        result.complete(loaded);
+    }
+
+    /* изменения применяются порциями вне блокировки, чтобы писатели не ждали; последняя пустая порция публикует индекс */
+    private void applyPending(SearchIndex loaded) {
+        while (true) {
+            Map<Integer, String[]> changes;
+            synchronized (lock) {
+                if (pending.isEmpty()) {
+                    pending = null;
+                    index = loaded;
+                    return;
+                }
+                changes = pending;
+                pending = new LinkedHashMap<>();
+            }
+            changes.forEach((id, fields) -> {
+                if (fields == null) {
+                    loaded.remove(id);
+                } else {
+                    loaded.put(id, fields);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ru.job4j.dreamjob.search;
+
+/**
+ * Найденные в сегменте документы: номера по возрастанию и их вес.
+ */
+record Matches(int[] docs, int[] scores) {
+    static final Matches NONE = new Matches(new int[0], new int[0]);
+
+    Matches and(Matches other) {
+        var docs = new IntList();
+        var scores = new IntList();
+        var i = 0;
+        var j = 0;
+        while (i < docs().length && j < other.docs.length) {
+            if (docs()[i] < other.docs[j]) {
+                i++;
+            } else if (docs()[i] > other.docs[j]) {
+                j++;
+            } else {
+                docs.add(docs()[i]);
+                scores.add(scores()[i++] + other.scores[j++]);
+            }
+        }
+        return new Matches(docs.toArray(), scores.toArray());
+    }
+
+    Matches or(Matches other) {
+        var docs = new IntList();
+        var scores = new IntList();
+        var i = 0;
+        var j = 0;
+        while (i < docs().length || j < other.docs.length) {
+            if (j == other.docs.length || i < docs().length && docs()[i] < other.docs[j]) {
+                docs.add(docs()[i]);
+                scores.add(scores()[i++]);
+            } else if (i == docs().length || docs()[i] > other.docs[j]) {
+                docs.add(other.docs[j]);
+                scores.add(other.scores[j++]);
+            } else {
+                docs.add(docs()[i]);
+                scores.add(scores()[i++] + other.scores[j++]);
+            }
+        }
+        return new Matches(docs.toArray(), scores.toArray());
+    }
+
+    Matches andNot(Matches other) {
+        var docs = new IntList();
+        var scores = new IntList();
+        var j = 0;
+        for (var i = 0; i < docs().length; i++) {
+            while (j < other.docs.length && other.docs[j] < docs()[i]) {
+                j++;
+            }
+            if (j == other.docs.length || other.docs[j] != docs()[i]) {
+                docs.add(docs()[i]);
+                scores.add(scores()[i]);
+            }
+        }
+        return new Matches(docs.toArray(), scores.toArray());
+    }
+}
@@ -0,0 +1,137 @@
+package ru.job4j.dreamjob.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Запрос в синтаксисе websearch_to_tsquery из Postgres, чтобы поиск вёл себя одинаково в обеих базах:
+ * слова через пробел - все должны встретиться, "слова в кавычках" - фраза, or между частями - любая из них,
+ * -слово - не должно встретиться.
+ */
+sealed interface Query {
+    Pattern LEXEME = Pattern.compile("(-?)(?:\"([^\"]*)\"?|(\\S+))");
+
+    Matches match(Segment segment);
+
+    /* null, если в запросе нет ни одного слова, которое должно встретиться */
+    static Query parse(String text) {
+        var alternatives = new ArrayList<Query>();
+        var required = new ArrayList<Query>();
+        var excluded = new ArrayList<Query>();
+        var matcher = LEXEME.matcher(text == null ? "" : text);
+        while (matcher.find()) {
+            var quoted = matcher.group(2);
+            var word = matcher.group(3);
+            if (quoted == null && matcher.group(1).isEmpty() && "or".equals(word.toLowerCase(Locale.ROOT))) {
+                addAlternative(alternatives, required, excluded);
+                continue;
+            }
+            var query = phrase(Tokenizer.terms(quoted != null ? quoted : word));
+            if (query != null) {
+                (matcher.group(1).isEmpty() ? required : excluded).add(query);
+            }
+        }
+        addAlternative(alternatives, required, excluded);
+        if (alternatives.isEmpty()) {
+            return null;
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : new Or(List.copyOf(alternatives));
+    }
+
+    private static void addAlternative(List<Query> alternatives, List<Query> required, List<Query> excluded) {
+        if (!required.isEmpty()) {
+            alternatives.add(new And(List.copyOf(required), List.copyOf(excluded)));
+        }
+        required.clear();
+        excluded.clear();
+    }
+
+    /* слово, которое токенизатор разбил на части (например, "e-mail"), ищется как фраза */
+    private static Query phrase(List<String> terms) {
+        if (terms.isEmpty()) {
+            return null;
+        }
+        return terms.size() == 1 ? new Term(terms.get(0)) : new Phrase(terms);
+    }
+
+    record Term(String term) implements Query {
+        @Override
+        public Matches match(Segment segment) {
+            var postings = segment.postings(term);
+            return postings == null ? Matches.NONE : new Matches(postings.docs(), postings.weights());
+        }
+    }
+
+    record Phrase(List<String> terms) implements Query {
+        @Override
+        public Matches match(Segment segment) {
+            var postings = terms.stream().map(segment::postings).toList();
+            if (postings.contains(null)) {
+                return Matches.NONE;
+            }
+            var first = postings.get(0);
+            var docs = new IntList();
+            var scores = new IntList();
+            var indexes = new int[postings.size()];
+            for (var i = 0; i < first.docs().length; i++) {
+                var doc = first.docs()[i];
+                indexes[0] = i;
+                var score = first.weights()[i];
+                var found = true;
+                for (var k = 1; k < postings.size() && found; k++) {
+                    indexes[k] = Arrays.binarySearch(postings.get(k).docs(), doc);
+                    found = indexes[k] >= 0;
+                    score += found ? postings.get(k).weights()[indexes[k]] : 0;
+                }
+                if (found && containsPhrase(postings, indexes)) {
+                    docs.add(doc);
+                    scores.add(score);
+                }
+            }
+            return new Matches(docs.toArray(), scores.toArray());
+        }
+
+        private static boolean containsPhrase(List<Segment.Postings> postings, int[] indexes) {
+            var first = postings.get(0);
+            for (var p = first.positionStarts()[indexes[0]]; p < first.positionStarts()[indexes[0] + 1]; p++) {
+                var start = first.positions()[p];
+                var matches = true;
+                for (var k = 1; k < postings.size() && matches; k++) {
+                    matches = postings.get(k).containsPosition(indexes[k], start + k);
+                }
+                if (matches) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    record And(List<Query> required, List<Query> excluded) implements Query {
+        @Override
+        public Matches match(Segment segment) {
+            var result = required.get(0).match(segment);
+            for (var i = 1; i < required.size() && result.docs().length > 0; i++) {
+                result = result.and(required.get(i).match(segment));
+            }
+            for (var query : excluded) {
+                result = result.andNot(query.match(segment));
+            }
+            return result;
+        }
+    }
+
+    record Or(List<Query> alternatives) implements Query {
+        @Override
+        public Matches match(Segment segment) {
+            var result = Matches.NONE;
+            for (var query : alternatives) {
+                result = result.or(query.match(segment));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ru.job4j.dreamjob.search;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Полнотекстовый индекс в памяти для баз без собственного поиска (H2 в тестах).
+ * Документ - несколько полей, совпадение в поле с меньшим номером весит больше: заголовок важнее описания.
+ * Синтаксис запросов описан в {@link Query}, слова сравниваются по основам ({@link Stemmer}).
+ *
+ * Индекс - список неизменяемых сегментов. Запись под блокировкой собирает новый список:
+ * прежняя версия документа помечается удалённой, новая добавляется сегментом из одного документа,
+ * мелкие сегменты сливаются. Поиск читает текущий список без блокировок и писателей не задерживает.
+ * Список можно взять как {@link Version} и искать по нему позже - так поиск согласуется с данными,
+ * опубликованными вместе с этой версией.
+ */
+@ThreadSafe
+public class SearchIndex {
+    private volatile List<LiveSegment> segments = List.of();
+
+    public void put(int id, String... fields) {
+        var segment = Segment.of(id, fields);
+        synchronized (this) {
+            var updated = without(id);
+            updated.add(LiveSegment.of(segment));
+            segments = compact(updated);
+        }
+    }
+
+    public synchronized void remove(int id) {
+        segments = compact(without(id));
+    }
+
+    /* текущее состояние индекса; последующие put и remove его не меняют */
+    public Version version() {
+        return new Version(segments);
+    }
+
+    public List<Integer> search(String text, int offset, int limit) {
+        return search(version(), text, offset, limit);
+    }
+
+    /* id найденных документов по убыванию веса, при равном весе - сначала более новые */
+    public static List<Integer> search(Version version, String text, int offset, int limit) {
+        var query = Query.parse(text);
+        if (query == null) {
+            return List.of();
+        }
+        var found = new long[0];
+        var count = 0;
+        for (var part : version.segments) {
+            var matches = query.match(part.segment());
+            found = Arrays.copyOf(found, count + matches.docs().length);
+            for (var i = 0; i < matches.docs().length; i++) {
+                var doc = matches.docs()[i];
+                if (part.isLive(doc)) {
+                    found[count++] = (long) matches.scores()[i] << 32 | part.segment().id(doc);
+                }
+            }
+        }
+        Arrays.sort(found, 0, count);
+        var result = new ArrayList<Integer>(Math.max(0, Math.min(limit, count - offset)));
+        for (var i = count - 1 - offset; i >= 0 && result.size() < limit; i--) {
+            result.add((int) found[i]);
+        }
+        return result;
+    }
+
+    private List<LiveSegment> without(int id) {
+        var result = new ArrayList<LiveSegment>(segments.size() + 1);
+        for (var part : segments) {
+            var doc = part.segment().doc(id);
+            result.add(doc >= 0 && part.isLive(doc) ? part.delete(doc) : part);
+        }
+        return result;
+    }
+
+    /**
+     * Размеры сегментов убывают от старых к новым хотя бы вдвое: пока последний не меньше половины
+     * предыдущего, они сливаются. Так сегментов O(log n), и каждый документ переписывается O(log n) раз.
+     * Сегмент, в котором удалено больше половины документов, переписывается без них.
+     */
+    private static List<LiveSegment> compact(List<LiveSegment> parts) {
+        var result = new ArrayList<LiveSegment>(parts.size());
+        for (var part : parts) {
+            if (part.liveCount() == 0) {
+                continue;
+            }
+            result.add(part.liveCount() * 2 < part.segment().size()
+                    ? LiveSegment.of(Segment.merge(List.of(part)))
+                    : part);
+        }
+        while (result.size() >= 2
+                && result.get(result.size() - 2).liveCount() <= 2 * result.get(result.size() - 1).liveCount()) {
+            var last = result.remove(result.size() - 1);
+            var previous = result.remove(result.size() - 1);
+            result.add(LiveSegment.of(Segment.merge(List.of(previous, last))));
+        }
+        return List.copyOf(result);
+    }
+
+    public static final class Version {
+        private final List<LiveSegment> segments;
+
+        private Version(List<LiveSegment> segments) {
+            this.segments = segments;
+        }
+    }
+}
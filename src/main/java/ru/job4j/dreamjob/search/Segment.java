@@ -0,0 +1,149 @@
+package ru.job4j.dreamjob.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемая часть индекса. Документы в сегменте пронумерованы с нуля; для каждого слова хранятся
+ * отсортированные номера документов, вес слова в документе и позиции вхождений - всё в массивах int.
+ */
+final class Segment {
+    /* позиции разных полей разнесены, чтобы фраза не склеивалась из конца заголовка и начала описания */
+    static final int FIELD_GAP = 1 << 16;
+
+    private final int[] ids;
+
+    private final int[] sortedIds;
+
+    private final int[] sortedDocs;
+
+    private final Map<String, Postings> postings;
+
+    /* вхождения документа index: позиции с positionStarts[index] до positionStarts[index + 1] */
+    record Postings(int[] docs, int[] weights, int[] positionStarts, int[] positions) {
+        boolean containsPosition(int index, int position) {
+            for (var i = positionStarts[index]; i < positionStarts[index + 1]; i++) {
+                if (positions[i] == position) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private Segment(int[] ids, Map<String, Postings> postings) {
+        this.ids = ids;
+        this.postings = postings;
+        var order = new long[ids.length];
+        for (var doc = 0; doc < ids.length; doc++) {
+            order[doc] = (long) ids[doc] << 32 | doc;
+        }
+        Arrays.sort(order);
+        sortedIds = new int[ids.length];
+        sortedDocs = new int[ids.length];
+        for (var i = 0; i < order.length; i++) {
+            sortedIds[i] = (int) (order[i] >>> 32);
+            sortedDocs[i] = (int) order[i];
+        }
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    int id(int doc) {
+        return ids[doc];
+    }
+
+    /* номер документа с этим id или -1 */
+    int doc(int id) {
+        var index = Arrays.binarySearch(sortedIds, id);
+        return index < 0 ? -1 : sortedDocs[index];
+    }
+
+    Postings postings(String term) {
+        return postings.get(term);
+    }
+
+    /* поле с меньшим номером весит больше: заголовок важнее описания */
+    static Segment of(int id, String... fields) {
+        var builder = new Builder();
+        var doc = builder.addDocument(id);
+        var positions = new HashMap<String, IntList>();
+        var weights = new HashMap<String, Integer>();
+        for (var field = 0; field < fields.length; field++) {
+            var weight = fields.length - field;
+            for (var token : Tokenizer.tokenize(fields[field])) {
+                positions.computeIfAbsent(token.term(), term -> new IntList())
+                        .add(field * FIELD_GAP + Math.min(token.position(), FIELD_GAP - 1));
+                weights.merge(token.term(), weight, Integer::sum);
+            }
+        }
+        positions.forEach((term, termPositions) ->
+                builder.add(term, doc, weights.get(term), termPositions.toArray(), 0, termPositions.size()));
+        return builder.build();
+    }
+
+    /* живые документы частей в их порядке; номера документов в каждом слове остаются отсортированными */
+    static Segment merge(List<LiveSegment> parts) {
+        var builder = new Builder();
+        for (var part : parts) {
+            var segment = part.segment();
+            var remap = new int[segment.size()];
+            for (var doc = 0; doc < remap.length; doc++) {
+                remap[doc] = part.isLive(doc) ? builder.addDocument(segment.id(doc)) : -1;
+            }
+            segment.postings.forEach((term, termPostings) -> {
+                for (var i = 0; i < termPostings.docs().length; i++) {
+                    var doc = remap[termPostings.docs()[i]];
+                    if (doc >= 0) {
+                        builder.add(term, doc, termPostings.weights()[i], termPostings.positions(),
+                                termPostings.positionStarts()[i], termPostings.positionStarts()[i + 1]);
+                    }
+                }
+            });
+        }
+        return builder.build();
+    }
+
+    private static final class Builder {
+        private final IntList ids = new IntList();
+
+        private final Map<String, PostingsBuilder> postings = new HashMap<>();
+
+        int addDocument(int id) {
+            ids.add(id);
+            return ids.size() - 1;
+        }
+
+        void add(String term, int doc, int weight, int[] positions, int from, int to) {
+            var termPostings = postings.computeIfAbsent(term, key -> new PostingsBuilder());
+            termPostings.docs.add(doc);
+            termPostings.weights.add(weight);
+            termPostings.positionStarts.add(termPostings.positions.size());
+            termPostings.positions.addAll(positions, from, to);
+        }
+
+        Segment build() {
+            var built = new HashMap<String, Postings>(postings.size() * 4 / 3 + 1);
+            postings.forEach((term, termPostings) -> {
+                termPostings.positionStarts.add(termPostings.positions.size());
+                built.put(term, new Postings(termPostings.docs.toArray(), termPostings.weights.toArray(),
+                        termPostings.positionStarts.toArray(), termPostings.positions.toArray()));
+            });
+            return new Segment(ids.toArray(), built);
+        }
+    }
+
+    private static final class PostingsBuilder {
+        private final IntList docs = new IntList();
+
+        private final IntList weights = new IntList();
+
+        private final IntList positionStarts = new IntList();
+
+        private final IntList positions = new IntList();
+    }
+}
@@ -0,0 +1,255 @@
+package ru.job4j.dreamjob.search;
+
+/**
+ * Отсекает окончания, чтобы формы одного слова совпадали при поиске.
+ * Русские слова - алгоритм Snowball для русского языка, английские - первый шаг алгоритма Портера
+ * (множественное число, -ed, -ing): этого хватает для названий вакансий и навыков.
+ * Слова из других символов и с цифрами не изменяются.
+ */
+final class Stemmer {
+    private static final String RUSSIAN_VOWELS = "аеиоуыэюя";
+
+    private static final String[] GERUND_AFTER_A = {"в", "вши", "вшись"};
+
+    private static final String[] GERUND = {"ив", "ивши", "ившись", "ыв", "ывши", "ывшись"};
+
+    private static final String[] REFLEXIVE = {"ся", "сь"};
+
+    private static final String[] ADJECTIVE = {
+            "ее", "ие", "ые", "ое", "ими", "ыми", "ей", "ий", "ый", "ой", "ем", "им", "ым", "ом",
+            "его", "ого", "ему", "ому", "их", "ых", "ую", "юю", "ая", "яя", "ою", "ею"
+    };
+
+    private static final String[] PARTICIPLE_AFTER_A = {"ем", "нн", "вш", "ющ", "щ"};
+
+    private static final String[] PARTICIPLE = {"ивш", "ывш", "ующ"};
+
+    private static final String[] VERB_AFTER_A = {
+            "ла", "на", "ете", "йте", "ли", "й", "л", "ем", "н", "ло", "но", "ет", "ют", "ны", "ть", "ешь", "нно"
+    };
+
+    private static final String[] VERB = {
+            "ила", "ыла", "ена", "ейте", "уйте", "ите", "или", "ыли", "ей", "уй", "ил", "ыл", "им", "ым", "ен",
+            "ило", "ыло", "ено", "ят", "ует", "уют", "ит", "ыт", "ены", "ить", "ыть", "ишь", "ую", "ю"
+    };
+
+    private static final String[] NOUN = {
+            "а", "ев", "ов", "ие", "ье", "е", "иями", "ями", "ами", "еи", "ии", "и", "ией", "ей", "ой", "ий", "й",
+            "иям", "ям", "ием", "ем", "ам", "ом", "о", "у", "ах", "иях", "ях", "ы", "ь", "ию", "ью", "ю", "ия",
+            "ья", "я"
+    };
+
+    private static final String[] DERIVATIONAL = {"ост", "ость"};
+
+    private static final String[] SUPERLATIVE = {"ейш", "ейше"};
+
+    private Stemmer() {
+    }
+
+    /* слово уже в нижнем регистре, ё заменена на е */
+    static String stem(String word) {
+        if (isWritten(word, 'а', 'я')) {
+            return stemRussian(word);
+        }
+        if (isWritten(word, 'a', 'z')) {
+            return stemEnglish(word);
+        }
+        return word;
+    }
+
+    private static boolean isWritten(String word, char from, char to) {
+        for (var i = 0; i < word.length(); i++) {
+            var letter = word.charAt(i);
+            if (letter < from || letter > to) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String stemRussian(String word) {
+        var rv = word.length();
+        for (var i = 0; i < word.length(); i++) {
+            if (isRussianVowel(word, i)) {
+                rv = i + 1;
+                break;
+            }
+        }
+        if (rv >= word.length()) {
+            return word;
+        }
+        var r2 = regionAfterSyllable(word, regionAfterSyllable(word, 0));
+        var stem = new StringBuilder(word);
+        if (!removeEnding(stem, rv, GERUND_AFTER_A, GERUND)) {
+            removeEnding(stem, rv, REFLEXIVE);
+            if (!removeAdjectival(stem, rv) && !removeEnding(stem, rv, VERB_AFTER_A, VERB)) {
+                removeEnding(stem, rv, NOUN);
+            }
+        }
+        removeEnding(stem, rv, "и");
+        removeEnding(stem, Math.max(rv, r2), DERIVATIONAL);
+        var superlative = removeEnding(stem, rv, SUPERLATIVE);
+        if (endsWith(stem, rv, "нн")) {
+            stem.setLength(stem.length() - 1);
+        } else if (!superlative) {
+            removeEnding(stem, rv, "ь");
+        }
+        return stem.toString();
+    }
+
+    private static boolean isRussianVowel(CharSequence word, int index) {
+        return RUSSIAN_VOWELS.indexOf(word.charAt(index)) >= 0;
+    }
+
+    /* начало области после первой пары "гласная, согласная" не раньше from: R1, а от R1 - R2 */
+    private static int regionAfterSyllable(String word, int from) {
+        for (var i = from + 1; i < word.length(); i++) {
+            if (isRussianVowel(word, i - 1) && !isRussianVowel(word, i)) {
+                return i + 1;
+            }
+        }
+        return word.length();
+    }
+
+    private static boolean removeAdjectival(StringBuilder stem, int limit) {
+        if (!removeEnding(stem, limit, ADJECTIVE)) {
+            return false;
+        }
+        removeEnding(stem, limit, PARTICIPLE_AFTER_A, PARTICIPLE);
+        return true;
+    }
+
+    private static boolean removeEnding(StringBuilder stem, int limit, String... endings) {
+        var ending = longestEnding(stem, limit, endings);
+        if (ending == null) {
+            return false;
+        }
+        stem.setLength(stem.length() - ending.length());
+        return true;
+    }
+
+    /* окончания первой группы удаляются, только если перед ними а или я - сама буква остаётся */
+    private static boolean removeEnding(StringBuilder stem, int limit, String[] afterA, String[] other) {
+        var first = longestEnding(stem, limit, afterA);
+        var second = longestEnding(stem, limit, other);
+        if (first == null && second == null) {
+            return false;
+        }
+        if (second == null || first != null && first.length() > second.length()) {
+            var before = stem.length() - first.length() - 1;
+            if (before < limit || stem.charAt(before) != 'а' && stem.charAt(before) != 'я') {
+                return false;
+            }
+            second = first;
+        }
+        stem.setLength(stem.length() - second.length());
+        return true;
+    }
+
+    private static String longestEnding(StringBuilder stem, int limit, String[] endings) {
+        String longest = null;
+        for (var ending : endings) {
+            if (endsWith(stem, limit, ending) && (longest == null || ending.length() > longest.length())) {
+                longest = ending;
+            }
+        }
+        return longest;
+    }
+
+    private static boolean endsWith(StringBuilder stem, int limit, String ending) {
+        var start = stem.length() - ending.length();
+        return start >= limit && stem.indexOf(ending, start) == start;
+    }
+
+    private static String stemEnglish(String word) {
+        if (word.length() <= 2) {
+            return word;
+        }
+        var stem = new StringBuilder(word);
+        removePlural(stem);
+        removeParticiple(stem);
+        if (stem.charAt(stem.length() - 1) == 'y' && hasVowel(stem, stem.length() - 1)) {
+            stem.setCharAt(stem.length() - 1, 'i');
+        }
+        return stem.toString();
+    }
+
+    private static void removePlural(StringBuilder stem) {
+        if (endsWith(stem, 0, "sses") || endsWith(stem, 0, "ies")) {
+            stem.setLength(stem.length() - 2);
+        } else if (endsWith(stem, 0, "s") && !endsWith(stem, 0, "ss")) {
+            stem.setLength(stem.length() - 1);
+        }
+    }
+
+    private static void removeParticiple(StringBuilder stem) {
+        if (endsWith(stem, 0, "eed")) {
+            if (measure(stem, stem.length() - 3) > 0) {
+                stem.setLength(stem.length() - 1);
+            }
+            return;
+        }
+        var suffix = 0;
+        if (endsWith(stem, 0, "ed")) {
+            suffix = 2;
+        } else if (endsWith(stem, 0, "ing")) {
+            suffix = 3;
+        }
+        if (suffix == 0 || !hasVowel(stem, stem.length() - suffix)) {
+            return;
+        }
+        stem.setLength(stem.length() - suffix);
+        if (endsWith(stem, 0, "at") || endsWith(stem, 0, "bl") || endsWith(stem, 0, "iz")) {
+            stem.append('e');
+        } else if (endsWithDoubleConsonant(stem)) {
+            stem.setLength(stem.length() - 1);
+        } else if (measure(stem, stem.length()) == 1 && endsWithShortSyllable(stem)) {
+            stem.append('e');
+        }
+    }
+
+    private static boolean isEnglishConsonant(CharSequence word, int index) {
+        var letter = word.charAt(index);
+        if ("aeiou".indexOf(letter) >= 0) {
+            return false;
+        }
+        return letter != 'y' || index == 0 || !isEnglishConsonant(word, index - 1);
+    }
+
+    private static boolean hasVowel(CharSequence word, int end) {
+        for (var i = 0; i < end; i++) {
+            if (!isEnglishConsonant(word, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* число сочетаний "гласные-согласные" в первых end буквах - m из алгоритма Портера */
+    private static int measure(CharSequence word, int end) {
+        var count = 0;
+        var vowelSeen = false;
+        for (var i = 0; i < end; i++) {
+            if (!isEnglishConsonant(word, i)) {
+                vowelSeen = true;
+            } else if (vowelSeen) {
+                count++;
+                vowelSeen = false;
+            }
+        }
+        return count;
+    }
+
+    private static boolean endsWithDoubleConsonant(StringBuilder stem) {
+        var last = stem.length() - 1;
+        var letter = stem.charAt(last);
+        return last > 0 && letter == stem.charAt(last - 1) && isEnglishConsonant(stem, last)
+                && letter != 'l' && letter != 's' && letter != 'z';
+    }
+
+    private static boolean endsWithShortSyllable(StringBuilder stem) {
+        var last = stem.length() - 1;
+        return last >= 2 && isEnglishConsonant(stem, last) && !isEnglishConsonant(stem, last - 1)
+                && isEnglishConsonant(stem, last - 2) && "wxy".indexOf(stem.charAt(last)) < 0;
+    }
+}
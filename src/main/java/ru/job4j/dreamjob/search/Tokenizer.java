@@ -0,0 +1,34 @@
+package ru.job4j.dreamjob.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Делит текст на слова из букв и цифр, приводит их к нижнему регистру и основе.
+ * Позиция - порядковый номер слова в тексте, по ней проверяются фразы.
+ */
+final class Tokenizer {
+    record Token(String term, int position) {
+    }
+
+    private Tokenizer() {
+    }
+
+    static List<Token> tokenize(String text) {
+        var tokens = new ArrayList<Token>();
+        if (text == null) {
+            return tokens;
+        }
+        for (var word : text.toLowerCase(Locale.ROOT).replace('ё', 'е').split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                tokens.add(new Token(Stemmer.stem(word), tokens.size()));
+            }
+        }
+        return tokens;
+    }
+
+    static List<String> terms(String text) {
+        return tokenize(text).stream().map(Token::term).toList();
+    }
+}
@@ -1,7 +1,9 @@
 package ru.job4j.dreamjob.service;
 
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.Page;
 import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.CandidateSummary;
 
 import java.util.Collection;
 import java.util.Optional;
@@ -16,4 +18,10 @@ public interface CandidateService {
     Optional<Candidate> findById(int id);
 
     Collection<Candidate> findAll();
+
+    /* after и before - закодированные курсоры из ссылок страницы, задаётся не больше одного из них */
+    Page<CandidateSummary> findPage(String after, String before, int size);
+
+    /* page - номер страницы результатов, с единицы */
+    Page<CandidateSummary> search(String query, int page, int size);
 }
@@ -3,7 +3,14 @@ package ru.job4j.dreamjob.service;
 import ru.job4j.dreamjob.model.City;
 
 import java.util.Collection;
+import java.util.Optional;
 
 public interface CityService {
+    /* города упорядочены по названию */
     Collection<City> findAll();
+
+    Optional<City> findById(int id);
+
+    /* перечитывает города из БД и возвращает новый список */
+    Collection<City> refresh();
 }
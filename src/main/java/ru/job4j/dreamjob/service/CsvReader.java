@@ -0,0 +1,51 @@
+package ru.job4j.dreamjob.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Читает CSV по одной записи (RFC 4180): поля через запятую, в кавычках допускаются
+ * запятые, переводы строк и удвоенные кавычки. Незакрытая кавычка заканчивается вместе с файлом.
+ */
+class CsvReader {
+    private final Reader reader;
+
+    CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /* null - записей больше нет */
+    List<String> next() throws IOException {
+        var c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        var quoted = false;
+        while (c != -1 && (quoted || c != '\n')) {
+            if (quoted && c == '"') {
+                c = reader.read();
+                if (c != '"') {
+                    quoted = false;
+                    continue;
+                }
+                field.append('"');
+            } else if (quoted) {
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,101 @@
+package ru.job4j.dreamjob.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.CandidateRepository;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Полные выгрузки для аналитики. Строки идут из БД курсором и сразу пишутся в поток,
+ * так что память не зависит от размера таблицы. Колонки вакансий совпадают с теми,
+ * что принимает {@link VacancyImporter}.
+ */
+@Component
+public class DataExporter {
+    private static final List<String> VACANCY_COLUMNS =
+            List.of("id", "title", "description", "creation_date", "visible", "city_id", "file_id");
+
+    private final VacancyRepository vacancyRepository;
+
+    private final CandidateRepository candidateRepository;
+
+    private final ObjectMapper objectMapper;
+
+    public DataExporter(VacancyRepository vacancyRepository, CandidateRepository candidateRepository,
+                        ObjectMapper objectMapper) {
+        this.vacancyRepository = vacancyRepository;
+        this.candidateRepository = candidateRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public void exportVacancies(OutputStream output) throws IOException {
+        var writer = createWriter(output);
+        var csv = new CsvWriter(writer);
+        csv.write(VACANCY_COLUMNS);
+        try {
+            vacancyRepository.forEach(vacancy -> write(csv, vacancy));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void write(CsvWriter csv, Vacancy vacancy) {
+        try {
+            csv.write(List.of(String.valueOf(vacancy.getId()), vacancy.getTitle(), vacancy.getDescription(),
+                    String.valueOf(vacancy.getCreationDate()), String.valueOf(vacancy.getVisible()),
+                    String.valueOf(vacancy.getCityId()), vacancy.getFileId() == 0 ? "" : String.valueOf(vacancy.getFileId())));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* JSON lines: по объекту на строку */
+    public void exportCandidates(OutputStream output) throws IOException {
+        var writer = createWriter(output);
+        var generator = objectMapper.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(new SerializedString("\n"));
+        try {
+            candidateRepository.forEach(candidate -> write(generator, candidate));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.writeRaw('\n');
+        generator.close();
+        writer.flush();
+    }
+
+    private void write(JsonGenerator generator, Candidate candidate) {
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("id", candidate.getId());
+            generator.writeStringField("name", candidate.getName());
+            generator.writeStringField("description", candidate.getDescription());
+            generator.writeStringField("creation_date", String.valueOf(candidate.getCreationDate()));
+            if (candidate.getFileId() != 0) {
+                generator.writeNumberField("file_id", candidate.getFileId());
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Writer createWriter(OutputStream output) {
+        return new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,83 @@
+package ru.job4j.dreamjob.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.cache.BoundedCache;
+import ru.job4j.dreamjob.cache.CacheStats;
+import ru.job4j.dreamjob.cache.EvictionPolicy;
+import ru.job4j.dreamjob.dto.FileResourceDto;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Небольшие часто запрашиваемые файлы вместе с метаданными держатся в памяти,
+ * чтобы повторный запрос не ходил ни в БД, ни на диск. Объём ограничен в байтах.
+ */
+@Component
+public class FileCache {
+    private static final long AVERAGE_ENTRY_BYTES = 16 * 1024;
+
+    private final BoundedCache<Key, CachedFile> cache;
+
+    private final long maxEntryBytes;
+
+    public FileCache(@Value("${file.cache.max-bytes}") long maxBytes,
+                     @Value("${file.cache.max-entry-bytes}") long maxEntryBytes,
+                     @Value("${file.cache.policy}") String policy) {
+        this.maxEntryBytes = Math.min(maxBytes, maxEntryBytes);
+        var expectedEntries = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxBytes / AVERAGE_ENTRY_BYTES));
+        this.cache = new BoundedCache<>(maxBytes, cached -> cached.content().length,
+                EvictionPolicy.of(policy, expectedEntries));
+    }
+
+    public Optional<FileResourceDto> get(int id, int size) {
+        return Optional.ofNullable(cache.get(new Key(id, size))).map(CachedFile::toDto);
+    }
+
+    /*
+     * Возвращает содержимое, которое следует отдать: из памяти, если файл попал в кеш.
+     * Байты читаются, только если кеш согласен принять запись; иначе файл отдаётся потоком.
+     */
+    public FileResourceDto put(int id, int size, FileResourceDto content) {
+        var key = new Key(id, size);
+        if (content.isFallback() || content.getSize() > maxEntryBytes
+                || content.getResource() instanceof ByteArrayResource || !cache.wouldAdmit(key, content.getSize())) {
+            return content;
+        }
+        var cached = new CachedFile(content.getName(), content.getContentType(), content.getChecksum(),
+                content.getLastModified(), readContent(content));
+        return cache.put(key, cached) ? cached.toDto() : content;
+    }
+
+    private byte[] readContent(FileResourceDto content) {
+        try {
+            return content.getResource().getContentAsByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void invalidate(int id) {
+        cache.invalidateIf(key -> key.id() == id);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private record Key(int id, int size) {
+    }
+
+    private record CachedFile(String name, MediaType contentType, String checksum,
+                              LocalDateTime lastModified, byte[] content) {
+        FileResourceDto toDto() {
+            var dto = new FileResourceDto(name, contentType, content.length, checksum, new ByteArrayResource(content));
+            dto.setLastModified(lastModified);
+            return dto;
+        }
+    }
+}
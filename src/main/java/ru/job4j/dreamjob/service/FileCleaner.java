@@ -0,0 +1,95 @@
+package ru.job4j.dreamjob.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Освобождает файлы удалённых и изменённых записей в фоне, чтобы запрос пользователя не ждал
+ * ни чтения записи файла, ни снятия ссылки, ни удаления с диска. Фоновый поток забирает
+ * всё накопленное, но не больше batchSize id, и передаёт одной пачкой в {@link FileService#deleteByIds}.
+ * При остановке приложения очередь дочищается. Если процесс упал раньше, у файла останется
+ * лишняя ссылка: файл не пропадёт, а только не будет удалён.
+ */
+@Component
+public class FileCleaner {
+    private static final Logger LOG = LoggerFactory.getLogger(FileCleaner.class);
+
+    private static final long POLL_MILLIS = 500;
+
+    private final FileService fileService;
+
+    private final int batchSize;
+
+    private final BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+
+    private final ExecutorService executor;
+
+    private volatile boolean running = true;
+
+    public FileCleaner(FileService fileService, @Value("${file.cleanup.batch-size}") int batchSize) {
+        this.fileService = fileService;
+        this.batchSize = batchSize;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "file-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::run);
+    }
+
+    /* 0 - у записи не было файла */
+    public void deleteLater(int fileId) {
+        if (fileId != 0) {
+            queue.add(fileId);
+        }
+    }
+
+    /* без прерываний: поток не должен остановиться посреди работы с БД */
+    private void run() {
+        var batch = new ArrayList<Integer>(batchSize);
+        try {
+            while (running) {
+                var first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    clean(batch);
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void clean(List<Integer> batch) {
+        try {
+            fileService.deleteByIds(List.copyOf(batch));
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to delete files {}", batch, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        executor.awaitTermination(POLL_MILLIS * 2, TimeUnit.MILLISECONDS);
+        var batch = new ArrayList<Integer>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            clean(batch);
+            batch.clear();
+        }
+    }
+}
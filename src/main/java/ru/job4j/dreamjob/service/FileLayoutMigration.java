@@ -0,0 +1,176 @@
+package ru.job4j.dreamjob.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.repository.FileRepository;
+import ru.job4j.dreamjob.storage.FileLayout;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Переносит файлы, сохранённые до появления {@link FileLayout}, в новую раскладку без остановки приложения.
+ * Каждая порция: жёсткие ссылки по новым путям, одно пакетное обновление путей в БД,
+ * сброс кеша и, после паузы для уже начатых загрузок, удаление старых путей.
+ */
+@Component
+public class FileLayoutMigration implements ApplicationRunner {
+    private static final Logger LOG = LoggerFactory.getLogger(FileLayoutMigration.class);
+
+    private final FileRepository fileRepository;
+
+    private final FileLayout fileLayout;
+
+    private final ThumbnailGenerator thumbnailGenerator;
+
+    private final FileCache fileCache;
+
+    private final boolean runOnStartup;
+
+    private final int batchSize;
+
+    private final long pauseMillis;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicLong scanned = new AtomicLong();
+
+    private final AtomicLong migrated = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    public FileLayoutMigration(FileRepository sql2oFileRepository,
+                               FileLayout fileLayout,
+                               ThumbnailGenerator thumbnailGenerator,
+                               FileCache fileCache,
+                               @Value("${file.migration.on-startup}") boolean runOnStartup,
+                               @Value("${file.migration.batch-size}") int batchSize,
+                               @Value("${file.migration.pause-millis}") long pauseMillis) {
+        this.fileRepository = sql2oFileRepository;
+        this.fileLayout = fileLayout;
+        this.thumbnailGenerator = thumbnailGenerator;
+        this.fileCache = fileCache;
+        this.runOnStartup = runOnStartup;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (runOnStartup) {
+            start();
+        }
+    }
+
+    /* возвращает false, если перенос уже идёт */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        scanned.set(0);
+        migrated.set(0);
+        failed.set(0);
+        var thread = new Thread(() -> {
+            try {
+                migrate();
+            } catch (RuntimeException e) {
+                LOG.error("File layout migration stopped", e);
+            } finally {
+                running.set(false);
+            }
+        }, "file-layout-migration");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public Progress getProgress() {
+        return new Progress(running.get(), scanned.get(), migrated.get(), failed.get());
+    }
+
+    private void migrate() {
+        int lastId = 0;
+        List<File> batch;
+        do {
+            batch = fileRepository.findAfterId(lastId, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+            scanned.addAndGet(batch.size());
+            migrateBatch(batch);
+        } while (batch.size() == batchSize && !Thread.currentThread().isInterrupted());
+        LOG.info("File layout migration finished: {}", getProgress());
+    }
+
+    private void migrateBatch(List<File> batch) {
+        var sources = new LinkedHashMap<Integer, Path>();
+        var targets = new LinkedHashMap<Integer, String>();
+        for (var file : batch) {
+            /* пропускаются файлы, уже лежащие в новой раскладке, и файлы из других хранилищ */
+            var targetOptional = fileLayout.findRelocated(file.getPath());
+            if (targetOptional.isEmpty()) {
+                continue;
+            }
+            var source = Path.of(file.getPath());
+            var target = targetOptional.get();
+            try {
+                linkContent(source, target);
+                sources.put(file.getId(), source);
+                targets.put(file.getId(), target.toString());
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                LOG.warn("Failed to link {} to {}", source, target, e);
+            }
+        }
+        var updated = fileRepository.updatePaths(targets);
+        updated.forEach(fileCache::invalidate);
+        pause();
+        /* если запись удалили во время переноса, новый путь уже убрал SimpleFileService.deleteById */
+        sources.forEach((id, source) -> {
+            if (updated.contains(id)) {
+                migrated.incrementAndGet();
+                deleteContent(source);
+            }
+        });
+    }
+
+    private void linkContent(Path source, Path target) throws IOException {
+        fileLayout.link(source, target);
+        for (var variant : thumbnailGenerator.findVariants(source.toString())) {
+            var suffix = variant.substring(source.toString().length());
+            fileLayout.link(Path.of(variant), Path.of(target + suffix));
+        }
+    }
+
+    private void deleteContent(Path path) {
+        try {
+            Files.deleteIfExists(path);
+            thumbnailGenerator.deleteVariants(path.toString());
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            LOG.warn("Failed to delete {}", path, e);
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public record Progress(boolean running, long scanned, long migrated, long failed) {
+    }
+}
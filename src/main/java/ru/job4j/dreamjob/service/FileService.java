@@ -1,14 +1,28 @@
 package ru.job4j.dreamjob.service;
 
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.FileResourceDto;
 import ru.job4j.dreamjob.model.File;
 
+import java.util.Collection;
 import java.util.Optional;
 
 public interface FileService {
     File save(FileDto fileDto);
 
-    Optional<FileDto> getFileById(int id);
+    Optional<FileResourceDto> getFileById(int id);
+
+    Optional<FileResourceDto> getFileById(int id, int size);
+
+    /* то же, что getFileById, но содержимое не читается и не кешируется: ресурс отдаётся потоком */
+    Optional<FileResourceDto> getFileMetadataById(int id, int size);
+
+    /* кладёт в кеш содержимое, полученное из getFileMetadataById; возвращает то, что следует отдать */
+    FileResourceDto cacheContent(int id, int size, FileResourceDto content);
+
+    Optional<File> findById(int id);
 
     void deleteById(int id);
+
+    void deleteByIds(Collection<Integer> ids);
 }
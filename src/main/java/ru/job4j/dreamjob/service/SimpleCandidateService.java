@@ -1,11 +1,15 @@
 package ru.job4j.dreamjob.service;
 
 import org.springframework.stereotype.Service;
+import ru.job4j.dreamjob.dto.Cursor;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.Page;
 import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.CandidateSummary;
 import ru.job4j.dreamjob.repository.CandidateRepository;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -15,9 +19,12 @@ public class SimpleCandidateService implements CandidateService {
 
     private final FileService fileService;
 
-    public SimpleCandidateService(CandidateRepository sql2oCandidateRepository, FileService fileService) {
-        this.candidateRepository = sql2oCandidateRepository;
+    private final FileCleaner fileCleaner;
+
+    public SimpleCandidateService(CandidateRepository candidateRepository, FileService fileService, FileCleaner fileCleaner) {
+        this.candidateRepository = candidateRepository;
         this.fileService = fileService;
+        this.fileCleaner = fileCleaner;
     }
 
     @Override
@@ -33,21 +40,21 @@ public class SimpleCandidateService implements CandidateService {
 
     @Override
     public boolean deleteById(int id) {
-        var fileOptional = findById(id);
-        fileOptional.ifPresent(candidate -> fileService.deleteById(candidate.getFileId()));
-        return candidateRepository.deleteById(id);
+        var fileId = candidateRepository.deleteReturningFileId(id);
+        fileId.ifPresent(fileCleaner::deleteLater);
+        return fileId.isPresent();
     }
 
     @Override
     public boolean update(Candidate candidate, FileDto image) {
-        var isNewFileEmpty = image.getContent().length == 0;
+        var isNewFileEmpty = image.isEmpty();
         if (isNewFileEmpty) {
             return candidateRepository.update(candidate);
         }
         var oldFileId = candidate.getFileId();
         saveNewFile(candidate, image);
         var isUpdated = candidateRepository.update(candidate);
-        fileService.deleteById(oldFileId);
+        fileCleaner.deleteLater(oldFileId);
         return isUpdated;
     }
 
@@ -60,4 +67,35 @@ public class SimpleCandidateService implements CandidateService {
     public Collection<Candidate> findAll() {
         return candidateRepository.findAll();
     }
+
+    @Override
+    public Page<CandidateSummary> findPage(String after, String before, int size) {
+        var limit = Page.limit(size);
+        var beforeCursor = Cursor.decode(before);
+        if (beforeCursor.isPresent()) {
+            var rows = candidateRepository.findSummariesBefore(beforeCursor.get(), limit + 1);
+            /* если до начала списка осталось меньше страницы, показываем первую страницу целиком */
+            if (rows.size() > limit) {
+                return Page.of(rows, limit, true, true, this::cursorOf);
+            }
+        }
+        var afterCursor = beforeCursor.isPresent() ? null : Cursor.decode(after).orElse(null);
+        var rows = candidateRepository.findSummariesAfter(afterCursor, limit + 1);
+        return Page.of(rows, limit, false, afterCursor != null, this::cursorOf);
+    }
+
+    @Override
+    public Page<CandidateSummary> search(String query, int page, int size) {
+        var limit = Page.limit(size);
+        var number = Page.number(page);
+        if (query == null || query.isBlank()) {
+            return Page.numbered(List.of(), limit, number);
+        }
+        var rows = candidateRepository.search(query.strip(), (number - 1) * limit, limit + 1);
+        return Page.numbered(rows, limit, number);
+    }
+
+    private Cursor cursorOf(CandidateSummary candidate) {
+        return new Cursor(candidate.creationDate(), candidate.id());
+    }
 }
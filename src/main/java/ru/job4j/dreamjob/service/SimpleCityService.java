@@ -1,21 +1,95 @@
 package ru.job4j.dreamjob.service;
 
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.job4j.dreamjob.model.City;
 import ru.job4j.dreamjob.repository.CityRepository;
 
+import javax.annotation.concurrent.ThreadSafe;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Города меняются крайне редко, поэтому читаются из БД целиком при старте и затем
+ * по расписанию или по запросу администратора. Запросы обслуживаются из неизменяемого снимка,
+ * который при обновлении подменяется целиком.
+ */
+@ThreadSafe
 @Service
 public class SimpleCityService implements CityService {
+    private static final Logger LOG = LoggerFactory.getLogger(SimpleCityService.class);
+
+    private static final Comparator<City> BY_NAME = Comparator.comparing(City::getName).thenComparingInt(City::getId);
+
     private final CityRepository cityRepository;
 
-    public SimpleCityService(CityRepository sql2oCityRepository) {
+    private final ScheduledExecutorService refresher;
+
+    private volatile Snapshot snapshot;
+
+    public SimpleCityService(CityRepository sql2oCityRepository,
+                             @Value("${city.refresh-interval-seconds}") long refreshIntervalSeconds) {
         this.cityRepository = sql2oCityRepository;
+        this.snapshot = load();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "city-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (refreshIntervalSeconds > 0) {
+            refresher.scheduleWithFixedDelay(this::refreshQuietly,
+                    refreshIntervalSeconds, refreshIntervalSeconds, TimeUnit.SECONDS);
+        }
     }
 
     @Override
     public Collection<City> findAll() {
-        return cityRepository.findAll();
+        return snapshot.sorted();
+    }
+
+    @Override
+    public Optional<City> findById(int id) {
+        return Optional.ofNullable(snapshot.byId().get(id));
+    }
+
+    @Override
+    public Collection<City> refresh() {
+        var loaded = load();
+        snapshot = loaded;
+        return loaded.sorted();
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            LOG.warn("Cities refresh failed, keeping the previous snapshot", e);
+        }
+    }
+
+    private Snapshot load() {
+        var cities = cityRepository.findAll();
+        return new Snapshot(
+                cities.stream().collect(Collectors.toUnmodifiableMap(City::getId, Function.identity())),
+                cities.stream().sorted(BY_NAME).toList());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private record Snapshot(Map<Integer, City> byId, List<City> sorted) {
     }
 }
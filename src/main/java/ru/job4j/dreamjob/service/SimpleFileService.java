@@ -1,70 +1,284 @@
 package ru.job4j.dreamjob.service;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.FileResourceDto;
 import ru.job4j.dreamjob.model.File;
 import ru.job4j.dreamjob.repository.FileRepository;
+import ru.job4j.dreamjob.storage.FileLayout;
+import ru.job4j.dreamjob.storage.FileStorage;
 
+import javax.imageio.ImageIO;
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLConnection;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class SimpleFileService implements FileService {
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int LOCK_STRIPES = 64;
+
     private final FileRepository fileRepository;
 
-    private final String storageDirectory;
+    private final FileStorage fileStorage;
+
+    private final FileLayout fileLayout;
+
+    private final boolean deduplicate;
+
+    private final ThumbnailGenerator thumbnailGenerator;
+
+    private final FileCache fileCache;
+
+    /* загрузка и удаление одного и того же содержимого сериализуются, чтобы не потерять общий файл */
+    private final Object[] contentLocks = new Object[LOCK_STRIPES];
 
     public SimpleFileService(FileRepository sql2oFileRepository,
-                             @Value("${file.directory}") String storageDirectory) {
+                             FileStorage fileStorage,
+                             FileLayout fileLayout,
+                             @Value("${file.deduplicate}") boolean deduplicate,
+                             ThumbnailGenerator thumbnailGenerator,
+                             FileCache fileCache) {
         this.fileRepository = sql2oFileRepository;
-        this.storageDirectory = storageDirectory;
-        createStorageDirectory(storageDirectory);
+        this.fileStorage = fileStorage;
+        this.fileLayout = fileLayout;
+        this.deduplicate = deduplicate;
+        this.thumbnailGenerator = thumbnailGenerator;
+        this.fileCache = fileCache;
+        for (int i = 0; i < contentLocks.length; i++) {
+            contentLocks[i] = new Object();
+        }
     }
 
-    private void createStorageDirectory(String path) {
+    @Override
+    public File save(FileDto fileDto) {
+        if (deduplicate) {
+            return saveContentAddressed(fileDto);
+        }
+        var location = fileStorage.locate(UUID.randomUUID() + fileDto.getName(), fileDto.getSize());
+        var file = new File(fileDto.getName(), location);
+        writeContent(location, fileDto.getContent(), file);
+        readMetadata(file);
+        thumbnailGenerator.generateAsync(location);
+        return fileRepository.save(file);
+    }
+
+    /* файл называется по SHA-256 содержимого; повторная загрузка стоит только подсчёта хеша и счётчика ссылок */
+    private File saveContentAddressed(FileDto fileDto) {
+        var file = new File(fileDto.getName(), null);
         try {
-            Files.createDirectories(Path.of(path));
+            copyContent(fileDto.getContent(), OutputStream.nullOutputStream(), file);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        synchronized (getContentLock(file)) {
+            var existingOptional = fileRepository.findByChecksum(file.getChecksum());
+            if (existingOptional.isPresent() && fileRepository.addReference(existingOptional.get().getId())) {
+                return existingOptional.get();
+            }
+            var location = fileStorage.locate(file.getChecksum(), file.getSize());
+            var written = new File(fileDto.getName(), location);
+            writeContent(location, fileDto.getContent(), written);
+            if (!file.getChecksum().equals(written.getChecksum())) {
+                /* записей с таким содержимым нет (проверено под блокировкой), поэтому удалять безопасно */
+                fileStorage.delete(location);
+                throw new IllegalStateException("Содержимое файла изменилось во время загрузки");
+            }
+            file.setPath(location);
+            readMetadata(file);
+            thumbnailGenerator.generateAsync(location);
+            return fileRepository.save(file);
+        }
     }
 
-    @Override
-    public File save(FileDto fileDto) {
-        var path = getNewFilePath(fileDto.getName());
-        writeFileBytes(path, fileDto.getContent());
-        return fileRepository.save(new File(fileDto.getName(), path));
+    private Object getContentLock(File file) {
+        var key = file.getChecksum() != null ? file.getChecksum() : file.getPath();
+        return contentLocks[Math.floorMod(key.hashCode(), contentLocks.length)];
     }
 
-    private String getNewFilePath(String sourceName) {
-        return storageDirectory + java.io.File.separator + UUID.randomUUID() + sourceName;
+    /*
+     * Метаданные снимаются один раз при загрузке, чтобы отдача файла их не вычисляла.
+     * Тип определяется по имени, а если по имени не понять - по первым байтам.
+     * У изображений читается только заголовок, без декодирования пикселей.
+     */
+    private void readMetadata(File file) {
+        var resource = fileStorage.read(file.getPath());
+        var contentType = getContentType(file.getName());
+        try (var input = new BufferedInputStream(resource.getInputStream())) {
+            if (MediaType.APPLICATION_OCTET_STREAM.equals(contentType)) {
+                var guessed = URLConnection.guessContentTypeFromStream(input);
+                contentType = guessed != null ? MediaType.parseMediaType(guessed) : contentType;
+            }
+            if ("image".equals(contentType.getType())) {
+                readImageSize(input, file);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        file.setContentType(contentType.toString());
     }
 
-    private void writeFileBytes(String path, byte[] content) {
-        try {
-            Files.write(Path.of(path), content);
+    private void readImageSize(InputStream input, File file) throws IOException {
+        try (var imageInput = ImageIO.createImageInputStream(input)) {
+            var readers = imageInput != null ? ImageIO.getImageReaders(imageInput) : null;
+            if (readers == null || !readers.hasNext()) {
+                return;
+            }
+            var reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                file.setWidth(reader.getWidth(0));
+                file.setHeight(reader.getHeight(0));
+            } catch (IOException e) {
+                /* повреждённое изображение сохраняется как есть, просто без размеров */
+                file.setWidth(0);
+                file.setHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /* SHA-256 считается на лету, пока хранилище читает содержимое */
+    private void writeContent(String location, InputStreamSource source, File file) {
+        var digest = createDigest();
+        try (var input = new DigestInputStream(source.getInputStream(), digest)) {
+            file.setSize(fileStorage.write(location, input));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        file.setChecksum(HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /* содержимое копируется через буфер фиксированного размера, размер и SHA-256 считаются на лету */
+    private void copyContent(InputStreamSource source, OutputStream output, File file) throws IOException {
+        var digest = createDigest();
+        try (var input = source.getInputStream()) {
+            var buffer = new byte[BUFFER_SIZE];
+            long size = 0;
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                output.write(buffer, 0, read);
+                size += read;
+            }
+            file.setSize(size);
+            file.setChecksum(HexFormat.of().formatHex(digest.digest()));
+        }
+    }
+
+    private MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     @Override
-    public Optional<FileDto> getFileById(int id) {
+    public Optional<FileResourceDto> getFileById(int id) {
+        return getFileById(id, 0);
+    }
+
+    @Override
+    public Optional<FileResourceDto> getFileById(int id, int size) {
+        return getFileMetadataById(id, size).map(content -> cacheContent(id, size, content));
+    }
+
+    @Override
+    public Optional<FileResourceDto> getFileMetadataById(int id, int size) {
+        var variantSize = getVariantSize(size);
+        var cachedOptional = fileCache.get(id, variantSize);
+        if (cachedOptional.isPresent()) {
+            return cachedOptional;
+        }
+        return loadFile(id, variantSize);
+    }
+
+    @Override
+    public FileResourceDto cacheContent(int id, int size, FileResourceDto content) {
+        return fileCache.put(id, getVariantSize(size), content);
+    }
+
+    /* кеш хранит копию под её настоящим размером: ?size=100 и ?size=200 отдают одну копию 256 и не должны занимать место дважды */
+    private int getVariantSize(int size) {
+        return size > 0 ? thumbnailGenerator.getVariantSize(size) : 0;
+    }
+
+    @Override
+    public Optional<File> findById(int id) {
+        return fileRepository.findById(id);
+    }
+
+    private Optional<FileResourceDto> loadFile(int id, int size) {
         var fileOptional = fileRepository.findById(id);
         if (fileOptional.isEmpty()) {
             return Optional.empty();
         }
-        var content = readFileAsBytes(fileOptional.get().getPath());
-        return Optional.of(new FileDto(fileOptional.get().getName(), content));
+        var file = fileOptional.get();
+        var location = file.getPath();
+        /* у записей, сохранённых до появления метаданных, тип определяется по имени */
+        var contentType = file.getContentType() != null
+                ? MediaType.parseMediaType(file.getContentType()) : getContentType(file.getName());
+        var fallback = false;
+        if (size > 0 && "image".equals(contentType.getType())) {
+            var variantOptional = thumbnailGenerator.findVariant(location, size);
+            if (variantOptional.isEmpty()) {
+                thumbnailGenerator.generateAsync(location);
+                fallback = true;
+            } else if (!location.equals(variantOptional.get())) {
+                var variant = variantOptional.get();
+                var resource = fileStorage.read(variant);
+                var content = new FileResourceDto(file.getName(), getContentType(variant),
+                        getContentLength(resource), getVariantChecksum(file, variant), resource);
+                content.setLastModified(file.getCreationDate());
+                return Optional.of(content);
+            }
+        }
+        /* размер берётся из БД, чтобы ответ 304 вообще не обращался к диску; у старых записей его нет */
+        var resource = fileStorage.read(location);
+        var fileSize = file.getSize() > 0 ? file.getSize() : getContentLength(resource);
+        var content = new FileResourceDto(file.getName(), contentType, fileSize, file.getChecksum(), resource);
+        content.setFallback(fallback);
+        content.setLastModified(file.getCreationDate());
+        return Optional.of(content);
     }
 
-    private byte[] readFileAsBytes(String path) {
+    /* уменьшенная копия однозначно определяется содержимым оригинала, размером и форматом */
+    private String getVariantChecksum(File file, String variant) {
+        if (file.getChecksum() == null) {
+            return null;
+        }
+        var suffix = variant.substring(file.getPath().length() + 1);
+        return file.getChecksum() + "-" + suffix.replace('.', '-');
+    }
+
+    private MediaType getContentType(String name) {
+        return MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    private long getContentLength(Resource resource) {
         try {
-            return Files.readAllBytes(Path.of(path));
+            return resource.contentLength();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -72,18 +286,33 @@ public class SimpleFileService implements FileService {
 
     @Override
     public void deleteById(int id) {
-        var fileOptional = fileRepository.findById(id);
-        if (fileOptional.isPresent()) {
-            deleteFile(fileOptional.get().getPath());
-            fileRepository.deleteById(id);
-        }
+        fileRepository.findById(id).ifPresent(this::delete);
     }
 
-    private void deleteFile(String path) {
-        try {
-            Files.deleteIfExists(Path.of(path));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    /* записи читаются одним запросом; id повторяется, если файл был общим у нескольких удалённых записей */
+    @Override
+    public void deleteByIds(Collection<Integer> ids) {
+        var files = fileRepository.findByIds(Set.copyOf(ids)).stream()
+                .collect(Collectors.toMap(File::getId, Function.identity()));
+        ids.stream()
+                .map(files::get)
+                .filter(Objects::nonNull)
+                .forEach(this::delete);
+    }
+
+    private void delete(File file) {
+        synchronized (getContentLock(file)) {
+            if (fileRepository.removeReference(file.getId())) {
+                deleteContent(file.getPath());
+                /* запись могла быть прочитана до переноса в новую раскладку, тогда файл уже лежит и по новому пути */
+                fileLayout.findRelocated(file.getPath()).ifPresent(relocated -> deleteContent(relocated.toString()));
+            }
         }
+        fileCache.invalidate(file.getId());
+    }
+
+    private void deleteContent(String location) {
+        fileStorage.delete(location);
+        thumbnailGenerator.deleteVariants(location);
     }
 }
@@ -1,11 +1,16 @@
 package ru.job4j.dreamjob.service;
 
 import org.springframework.stereotype.Service;
+import ru.job4j.dreamjob.dto.Cursor;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.Page;
+import ru.job4j.dreamjob.dto.VacancyFilter;
 import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.model.VacancySummary;
 import ru.job4j.dreamjob.repository.VacancyRepository;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -14,9 +19,12 @@ public class SimpleVacancyService implements VacancyService {
 
     private final FileService fileService;
 
-    private SimpleVacancyService(VacancyRepository sql2oVacancyRepository, FileService fileService) {
-        this.vacancyRepository = sql2oVacancyRepository;
+    private final FileCleaner fileCleaner;
+
+    public SimpleVacancyService(VacancyRepository vacancyRepository, FileService fileService, FileCleaner fileCleaner) {
+        this.vacancyRepository = vacancyRepository;
         this.fileService = fileService;
+        this.fileCleaner = fileCleaner;
     }
 
     @Override
@@ -32,14 +40,14 @@ public class SimpleVacancyService implements VacancyService {
 
     @Override
     public boolean deleteById(int id) {
-        var fileOptional = findById(id);
-        fileOptional.ifPresent(vacancy -> fileService.deleteById(vacancy.getFileId()));
-        return vacancyRepository.deleteById(id);
+        var fileId = vacancyRepository.deleteReturningFileId(id);
+        fileId.ifPresent(fileCleaner::deleteLater);
+        return fileId.isPresent();
     }
 
     @Override
     public boolean update(Vacancy vacancy, FileDto image) {
-        var isNewFileEmpty = image.getContent().length == 0;
+        var isNewFileEmpty = image.isEmpty();
         if (isNewFileEmpty) {
             return vacancyRepository.update(vacancy);
         }
@@ -47,7 +55,7 @@ public class SimpleVacancyService implements VacancyService {
         var oldFileId = vacancy.getFileId();
         saveNewFile(vacancy, image);
         var isUpdated = vacancyRepository.update(vacancy);
-        fileService.deleteById(oldFileId);
+        fileCleaner.deleteLater(oldFileId);
         return isUpdated;
     }
 
@@ -60,4 +68,35 @@ public class SimpleVacancyService implements VacancyService {
     public Collection<Vacancy> findAll() {
         return vacancyRepository.findAll();
     }
+
+    @Override
+    public Page<VacancySummary> findPage(VacancyFilter filter, String after, String before, int size) {
+        var limit = Page.limit(size);
+        var beforeCursor = Cursor.decode(before);
+        if (beforeCursor.isPresent()) {
+            var rows = vacancyRepository.findSummariesBefore(filter, beforeCursor.get(), limit + 1);
+            /* если до начала списка осталось меньше страницы, показываем первую страницу целиком */
+            if (rows.size() > limit) {
+                return Page.of(rows, limit, true, true, this::cursorOf);
+            }
+        }
+        var afterCursor = beforeCursor.isPresent() ? null : Cursor.decode(after).orElse(null);
+        var rows = vacancyRepository.findSummariesAfter(filter, afterCursor, limit + 1);
+        return Page.of(rows, limit, false, afterCursor != null, this::cursorOf);
+    }
+
+    @Override
+    public Page<VacancySummary> search(String query, int page, int size) {
+        var limit = Page.limit(size);
+        var number = Page.number(page);
+        if (query == null || query.isBlank()) {
+            return Page.numbered(List.of(), limit, number);
+        }
+        var rows = vacancyRepository.search(query.strip(), (number - 1) * limit, limit + 1);
+        return Page.numbered(rows, limit, number);
+    }
+
+    private Cursor cursorOf(VacancySummary vacancy) {
+        return new Cursor(vacancy.creationDate(), vacancy.id());
+    }
 }
@@ -0,0 +1,216 @@
+package ru.job4j.dreamjob.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.storage.FileStorage;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Уменьшенные копии изображений хранятся рядом с оригиналом: {@code <оригинал>.<размер>.<jpg|png>}.
+ * Размер - длина большей стороны. Копии строятся в фоне на ограниченном пуле,
+ * при переполнении очереди задача отбрасывается и будет поставлена снова при следующем запросе.
+ * Если изображение не больше размера, вместо копии сохраняется пустая метка {@code <оригинал>.<размер>.orig}:
+ * для этого размера отдаётся сам оригинал, и повторно изображение не декодируется.
+ * Размеры изображения читаются из заголовка до декодирования: картинку больше maxPixels точек
+ * (маленький файл может объявить огромный холст) не декодируем, для неё тоже ставятся метки.
+ * Большие изображения декодируются с прореживанием, но не меньше чем вдвое больше самой большой копии.
+ */
+@Component
+public class ThumbnailGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(ThumbnailGenerator.class);
+
+    private static final String ORIGINAL = "orig";
+
+    private static final String[] SUFFIXES = {"jpg", "png", ORIGINAL};
+
+    private final FileStorage fileStorage;
+
+    private final int[] sizes;
+
+    private final long maxPixels;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public ThumbnailGenerator(FileStorage fileStorage,
+                              @Value("${file.thumbnail.sizes}") int[] sizes,
+                              @Value("${file.thumbnail.threads}") int threads,
+                              @Value("${file.thumbnail.queue-capacity}") int queueCapacity,
+                              @Value("${file.thumbnail.max-pixels}") long maxPixels) {
+        this.fileStorage = fileStorage;
+        this.sizes = Arrays.stream(sizes).sorted().toArray();
+        this.maxPixels = maxPixels;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    var thread = new Thread(runnable, "thumbnail-generator");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public void generateAsync(String original) {
+        if (!pending.add(original)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(original);
+                } finally {
+                    pending.remove(original);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(original);
+            LOG.warn("Thumbnail queue is full, skipping {}", original);
+        }
+    }
+
+    /* выбирается наименьший вариант не меньше запрошенного размера; для небольших изображений - сам оригинал */
+    /* размер копии, которой отвечают на запрос requestedSize: наименьшая не меньше запрошенной или самая большая */
+    public int getVariantSize(int requestedSize) {
+        return Arrays.stream(sizes)
+                .filter(candidate -> candidate >= requestedSize)
+                .findFirst()
+                .orElse(sizes[sizes.length - 1]);
+    }
+
+    public Optional<String> findVariant(String original, int requestedSize) {
+        var size = getVariantSize(requestedSize);
+        for (var suffix : SUFFIXES) {
+            var variant = getVariantLocation(original, size, suffix);
+            if (fileStorage.exists(variant)) {
+                return Optional.of(ORIGINAL.equals(suffix) ? original : variant);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /* все сохранённые копии и метки оригинала - то, что переносится и удаляется вместе с ним */
+    public List<String> findVariants(String original) {
+        var variants = new ArrayList<String>();
+        for (var size : sizes) {
+            for (var suffix : SUFFIXES) {
+                var variant = getVariantLocation(original, size, suffix);
+                if (fileStorage.exists(variant)) {
+                    variants.add(variant);
+                }
+            }
+        }
+        return variants;
+    }
+
+    public void deleteVariants(String original) {
+        for (var size : sizes) {
+            for (var suffix : SUFFIXES) {
+                fileStorage.delete(getVariantLocation(original, size, suffix));
+            }
+        }
+    }
+
+    void generate(String original) {
+        try (var stream = fileStorage.read(original).getInputStream();
+             var input = ImageIO.createImageInputStream(stream)) {
+            var readers = input == null ? Collections.<ImageReader>emptyIterator() : ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return;
+            }
+            var reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                generate(original, reader);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to generate thumbnails for {}", original, e);
+        }
+    }
+
+    private void generate(String original, ImageReader reader) throws IOException {
+        var width = reader.getWidth(0);
+        var height = reader.getHeight(0);
+        var longerSide = Math.max(width, height);
+        if ((long) width * height > maxPixels) {
+            LOG.warn("Image {} is {}x{}, over {} pixels; serving it without thumbnails", original, width, height, maxPixels);
+            for (var size : sizes) {
+                fileStorage.write(getVariantLocation(original, size, ORIGINAL), InputStream.nullInputStream());
+            }
+            return;
+        }
+        var param = reader.getDefaultReadParam();
+        var step = getSubsampling(longerSide);
+        param.setSourceSubsampling(step, step, 0, 0);
+        var image = reader.read(0, param);
+        var format = image.getColorModel().hasAlpha() ? "png" : "jpg";
+        for (var size : sizes) {
+            if (longerSide <= size) {
+                fileStorage.write(getVariantLocation(original, size, ORIGINAL), InputStream.nullInputStream());
+            } else {
+                writeVariant(scale(image, size), getVariantLocation(original, size, format), format);
+            }
+        }
+    }
+
+    /* каждая точка step-й строки и столбца; копия строится из изображения хотя бы вдвое больше себя */
+    private int getSubsampling(int longerSide) {
+        var largest = Arrays.stream(sizes).filter(size -> size < longerSide).max().orElse(longerSide);
+        return Math.max(1, longerSide / (2 * largest));
+    }
+
+    private BufferedImage scale(BufferedImage image, int size) {
+        var ratio = (double) size / Math.max(image.getWidth(), image.getHeight());
+        var width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        var height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        var type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        var result = new BufferedImage(width, height, type);
+        var graphics = result.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+
+    /* уменьшенная копия кодируется в память целиком: она заведомо меньше оригинала */
+    private void writeVariant(BufferedImage image, String target, String format) throws IOException {
+        var output = new ByteArrayOutputStream();
+        ImageIO.write(image, format, output);
+        fileStorage.write(target, new ByteArrayInputStream(output.toByteArray()));
+    }
+
+    private String getVariantLocation(String original, int size, String suffix) {
+        return original + "." + size + "." + suffix;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
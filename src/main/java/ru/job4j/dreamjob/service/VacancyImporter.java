@@ -0,0 +1,221 @@
+package ru.job4j.dreamjob.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.job4j.dreamjob.dto.ImportReport;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Загрузка вакансий из выгрузок партнёров: CSV с заголовком или JSON lines, по объекту в строке.
+ * Колонки (ключи) - title, description, city_id, visible, creation_date; обязательны title и city_id.
+ * Вход читается потоком, прошедшие проверку строки копятся до chunkSize и сохраняются
+ * одним пакетным INSERT в своей транзакции. Если БД отклонила порцию, её строки сохраняются по одной,
+ * чтобы не потерять правильные. Ошибка строки не прерывает загрузку, а попадает в отчёт с номером строки.
+ */
+@Component
+public class VacancyImporter {
+    private static final Logger LOG = LoggerFactory.getLogger(VacancyImporter.class);
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final VacancyRepository vacancyRepository;
+
+    private final CityService cityService;
+
+    private final ObjectMapper objectMapper;
+
+    private final int chunkSize;
+
+    public VacancyImporter(VacancyRepository vacancyRepository, CityService cityService, ObjectMapper objectMapper,
+                           @Value("${vacancy.import.chunk-size}") int chunkSize) {
+        this.vacancyRepository = vacancyRepository;
+        this.cityService = cityService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    /* номер строки - номер записи после заголовка */
+    public ImportReport importCsv(InputStream input) throws IOException {
+        var reader = new CsvReader(createReader(input));
+        var header = reader.next();
+        var result = new Import();
+        if (header == null) {
+            return result.finish();
+        }
+        var row = 0;
+        for (var record = reader.next(); record != null; record = reader.next()) {
+            row++;
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            if (record.size() != header.size()) {
+                result.reject(row, "Ожидалось полей: " + header.size() + ", получено: " + record.size());
+                continue;
+            }
+            var fields = new HashMap<String, String>();
+            for (var i = 0; i < header.size(); i++) {
+                fields.put(header.get(i).strip(), record.get(i));
+            }
+            result.add(row, fields);
+        }
+        return result.finish();
+    }
+
+    public ImportReport importJsonLines(InputStream input) throws IOException {
+        var reader = createReader(input);
+        var result = new Import();
+        var row = 0;
+        for (var line = reader.readLine(); line != null; line = reader.readLine()) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                var node = objectMapper.readTree(line);
+                if (!node.isObject()) {
+                    result.reject(row, "Ожидался JSON-объект");
+                    continue;
+                }
+                var fields = new HashMap<String, String>();
+                node.fields().forEachRemaining(field -> fields.put(field.getKey(),
+                        field.getValue().isNull() ? null : field.getValue().asText()));
+                result.add(row, fields);
+            } catch (JsonProcessingException e) {
+                result.reject(row, "Некорректный JSON: " + e.getOriginalMessage());
+            }
+        }
+        return result.finish();
+    }
+
+    private BufferedReader createReader(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    private Vacancy toVacancy(Map<String, String> fields) {
+        var title = fields.get("title");
+        if (title == null || title.isBlank()) {
+            throw new IllegalArgumentException("Не указано название");
+        }
+        var description = fields.get("description");
+        var vacancy = new Vacancy(0, title.strip(), description == null ? "" : description,
+                parseVisible(fields.get("visible")), parseCityId(fields.get("city_id")), 0);
+        var creationDate = fields.get("creation_date");
+        if (creationDate != null && !creationDate.isBlank()) {
+            try {
+                vacancy.setCreationDate(LocalDateTime.parse(creationDate.strip()));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Некорректная дата создания: " + creationDate);
+            }
+        }
+        return vacancy;
+    }
+
+    /* город проверяется по снимку городов, без обращения к БД */
+    private int parseCityId(String value) {
+        int cityId;
+        try {
+            cityId = Integer.parseInt(value == null ? "" : value.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный город: " + value);
+        }
+        if (cityService.findById(cityId).isEmpty()) {
+            throw new IllegalArgumentException("Неизвестный город: " + cityId);
+        }
+        return cityId;
+    }
+
+    /* по умолчанию вакансия видима */
+    private boolean parseVisible(String value) {
+        if (value == null || value.isBlank()) {
+            return true;
+        }
+        return switch (value.strip().toLowerCase()) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> throw new IllegalArgumentException("Некорректный признак видимости: " + value);
+        };
+    }
+
+    /* состояние одной загрузки: ожидающая сохранения порция и итоги */
+    private class Import {
+        private final List<Vacancy> chunk = new ArrayList<>(chunkSize);
+
+        private final List<Integer> chunkRows = new ArrayList<>(chunkSize);
+
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+
+        private int imported;
+
+        private int failed;
+
+        void add(int row, Map<String, String> fields) {
+            try {
+                chunk.add(toVacancy(fields));
+                chunkRows.add(row);
+            } catch (IllegalArgumentException e) {
+                reject(row, e.getMessage());
+                return;
+            }
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(int row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportReport.RowError(row, message));
+            }
+        }
+
+        ImportReport finish() {
+            flush();
+            return new ImportReport(imported, failed, List.copyOf(errors));
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                vacancyRepository.saveAll(chunk);
+                imported += chunk.size();
+            } catch (RuntimeException e) {
+                LOG.debug("Chunk of {} rows rejected, saving row by row", chunk.size(), e);
+                saveOneByOne();
+            }
+            chunk.clear();
+            chunkRows.clear();
+        }
+
+        /* порция откатилась целиком; построчное сохранение спасает остальные строки и находит виноватую */
+        private void saveOneByOne() {
+            for (var i = 0; i < chunk.size(); i++) {
+                try {
+                    vacancyRepository.save(chunk.get(i));
+                    imported++;
+                } catch (RuntimeException e) {
+                    LOG.warn("Import row {} rejected by the database", chunkRows.get(i), e);
+                    reject(chunkRows.get(i), "Строка не сохранена: запись отклонена базой данных");
+                }
+            }
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package ru.job4j.dreamjob.service;
 
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.Page;
+import ru.job4j.dreamjob.dto.VacancyFilter;
 import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.model.VacancySummary;
 
 import java.util.Collection;
 import java.util.Optional;
@@ -16,4 +19,10 @@ public interface VacancyService {
     Optional<Vacancy> findById(int id);
 
     Collection<Vacancy> findAll();
+
+    /* after и before - закодированные курсоры из ссылок страницы, задаётся не больше одного из них */
+    Page<VacancySummary> findPage(VacancyFilter filter, String after, String before, int size);
+
+    /* page - номер страницы результатов, с единицы */
+    Page<VacancySummary> search(String query, int page, int size);
 }
@@ -0,0 +1,86 @@
+package ru.job4j.dreamjob.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Файлы раскладываются по двум уровням каталогов по первым символам имени:
+ * {@code <каталог>/ab/cd/abcd...}. Имена - SHA-256 или UUID, поэтому в каждом каталоге
+ * оказывается примерно 1/65536 всех файлов, а не все сразу.
+ */
+@Component
+public class FileLayout {
+    private static final int LEVELS = 2;
+
+    private static final int LEVEL_WIDTH = 2;
+
+    private final Path directory;
+
+    public FileLayout(@Value("${file.directory}") String directory) {
+        this.directory = Path.of(directory);
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public Path resolve(String fileName) {
+        var path = directory;
+        for (int level = 0; level < LEVELS; level++) {
+            path = path.resolve(getShard(fileName, level));
+        }
+        return path.resolve(fileName);
+    }
+
+    /* короткие имена старого формата дополняются, чтобы у всех файлов была одна глубина */
+    private String getShard(String fileName, int level) {
+        var shard = new StringBuilder(LEVEL_WIDTH);
+        for (int i = level * LEVEL_WIDTH; i < (level + 1) * LEVEL_WIDTH; i++) {
+            var symbol = i < fileName.length() ? Character.toLowerCase(fileName.charAt(i)) : '_';
+            shard.append(Character.isLetterOrDigit(symbol) ? symbol : '_');
+        }
+        return shard.toString();
+    }
+
+    /* для файла, лежащего прямо в корне по старой плоской раскладке, - путь в текущей раскладке */
+    public Optional<Path> findRelocated(String location) {
+        var path = Path.of(location);
+        if (!directory.equals(path.getParent())) {
+            return Optional.empty();
+        }
+        return Optional.of(resolve(path.getFileName().toString()));
+    }
+
+    public void createParentDirectories(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+    }
+
+    /*
+     * Жёсткая ссылка позволяет перенести файл, не копируя содержимое: пока запись в БД не обновлена,
+     * файл доступен по обоим путям. Если ссылки не поддерживаются, файл копируется.
+     */
+    public void link(Path source, Path target) throws IOException {
+        if (Files.exists(target)) {
+            return; /* уже перенесён прерванным запуском или вместе с другой записью; имя задаёт содержимое */
+        }
+        createParentDirectories(target);
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            if (Files.exists(target)) {
+                return;
+            }
+            if (Files.notExists(source)) {
+                throw e;
+            }
+            Files.copy(source, target);
+        }
+    }
+}
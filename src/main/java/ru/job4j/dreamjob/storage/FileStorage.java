@@ -0,0 +1,27 @@
+package ru.job4j.dreamjob.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Хранилище содержимого файлов. Расположение - строка, которая сохраняется в {@code files.path}
+ * и по которой хранилище потом находит содержимое. Уменьшенные копии хранятся рядом с оригиналом
+ * под расположением оригинала с суффиксом.
+ */
+public interface FileStorage {
+    /* расположение для нового содержимого с заданным именем и ожидаемым размером */
+    String locate(String key, long size);
+
+    boolean owns(String location);
+
+    /* запись атомарна: читатели видят либо прежнее содержимое, либо новое целиком; возвращает размер */
+    long write(String location, InputStream content) throws IOException;
+
+    Resource read(String location);
+
+    boolean exists(String location);
+
+    void delete(String location);
+}
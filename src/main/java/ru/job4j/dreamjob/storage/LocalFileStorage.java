@@ -0,0 +1,66 @@
+package ru.job4j.dreamjob.storage;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Каждое содержимое - отдельный файл в раскладке {@link FileLayout}, расположение - путь к нему.
+ */
+public class LocalFileStorage implements FileStorage {
+    private final FileLayout fileLayout;
+
+    public LocalFileStorage(FileLayout fileLayout) {
+        this.fileLayout = fileLayout;
+    }
+
+    @Override
+    public String locate(String key, long size) {
+        return fileLayout.resolve(key).toString();
+    }
+
+    /* всё, что не принадлежит другим хранилищам, - пути на диске */
+    @Override
+    public boolean owns(String location) {
+        return true;
+    }
+
+    @Override
+    public long write(String location, InputStream content) throws IOException {
+        var path = Path.of(location);
+        var temporaryPath = Path.of(location + "." + UUID.randomUUID() + ".tmp");
+        try {
+            fileLayout.createParentDirectories(path);
+            var size = Files.copy(content, temporaryPath);
+            Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return size;
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    @Override
+    public Resource read(String location) {
+        return new FileSystemResource(location);
+    }
+
+    @Override
+    public boolean exists(String location) {
+        return Files.exists(Path.of(location));
+    }
+
+    @Override
+    public void delete(String location) {
+        try {
+            Files.deleteIfExists(Path.of(location));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
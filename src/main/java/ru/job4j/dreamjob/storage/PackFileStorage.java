@@ -0,0 +1,492 @@
+package ru.job4j.dreamjob.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Мелкие файлы дописываются записями в большие файлы-сегменты, поэтому на тысячи аватаров
+ * приходится несколько inode. Запись: заголовок (метка, тип, длины ключа и данных, CRC32), ключ, данные.
+ * Удаление дописывает запись-надгробие. Надгробие нужно, пока жив хоть один сегмент старше его:
+ * в любом из них может остаться прежняя версия файла, в том числе перезаписанная до удаления.
+ * Индекс ключ → смещение держится в памяти и при старте восстанавливается чтением заголовков.
+ * Чтение идёт из отображённых в память сегментов без копирования.
+ * Сегменты, где мёртвых байтов больше порога, переписываются в фоне: живые записи переносятся в активный сегмент.
+ */
+public class PackFileStorage implements FileStorage, Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(PackFileStorage.class);
+
+    public static final String PREFIX = "pack:";
+
+    private static final int MAGIC = 0x444A504B;
+
+    private static final byte PUT = 1;
+
+    private static final byte DELETE = 2;
+
+    private static final int HEADER_BYTES = Integer.BYTES + Byte.BYTES + Integer.BYTES * 3;
+
+    private static final String SEGMENT_SUFFIX = ".pack";
+
+    private final Path directory;
+
+    private final long segmentBytes;
+
+    private final int maxBlobBytes;
+
+    private final double compactionThreshold;
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+
+    private final NavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+
+    /* дописывание, перенос при уплотнении и смена активного сегмента идут по одному */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final ScheduledExecutorService compactor;
+
+    private volatile Segment active;
+
+    public PackFileStorage(Path directory, long segmentBytes, int maxBlobBytes,
+                           double compactionThreshold, long compactionIntervalSeconds) {
+        if (segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment must fit into a single memory mapping");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBlobBytes = maxBlobBytes;
+        this.compactionThreshold = compactionThreshold;
+        try {
+            Files.createDirectories(directory);
+            load();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "pack-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (compactionIntervalSeconds > 0) {
+            compactor.scheduleWithFixedDelay(this::compactQuietly,
+                    compactionIntervalSeconds, compactionIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private void load() throws IOException {
+        var paths = new ArrayList<Path>();
+        try (var stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(paths::add);
+        }
+        paths.sort(null);
+        for (int i = 0; i < paths.size(); i++) {
+            var name = paths.get(i).getFileName().toString();
+            var segment = Segment.open(Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length())),
+                    paths.get(i));
+            segments.put(segment.id, segment);
+            scan(segment, i == paths.size() - 1);
+        }
+        active = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+        for (var segment : segments.values()) {
+            segment.remap();
+        }
+    }
+
+    private void scan(Segment segment, boolean last) throws IOException {
+        var size = segment.channel.size();
+        long position = 0;
+        Record record;
+        while ((record = readRecord(segment.channel, position, size, last)) != null) {
+            var entry = new Entry(segment, position, record.length(),
+                    position + record.length() - record.dataLength(), record.dataLength());
+            if (record.type() == PUT) {
+                markDead(index.put(record.key(), entry));
+            } else {
+                markDead(index.remove(record.key()));
+                markDead(entry);
+            }
+            position += record.length();
+        }
+        if (position < size) {
+            LOG.warn("Pack segment {} has {} unreadable trailing bytes", segment.path, size - position);
+            if (last) {
+                segment.channel.truncate(position);
+            }
+        }
+        segment.size = position;
+    }
+
+    /* в последнем сегменте проверяется CRC: недописанный при сбое хвост отрезается */
+    private Record readRecord(FileChannel channel, long position, long size, boolean verify) throws IOException {
+        if (position + HEADER_BYTES > size) {
+            return null;
+        }
+        var header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, position);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            return null;
+        }
+        var type = header.get();
+        var keyLength = header.getInt();
+        var dataLength = header.getInt();
+        var crc = header.getInt();
+        var length = (long) HEADER_BYTES + keyLength + dataLength;
+        if (keyLength < 0 || dataLength < 0 || position + length > size) {
+            return null;
+        }
+        var key = ByteBuffer.allocate(keyLength);
+        readFully(channel, key, position + HEADER_BYTES);
+        if (verify) {
+            var data = ByteBuffer.allocate(dataLength);
+            readFully(channel, data, position + HEADER_BYTES + keyLength);
+            if (crc != checksum(key.array(), data.array())) {
+                return null;
+            }
+        }
+        return new Record(type, new String(key.array(), StandardCharsets.UTF_8), (int) length, dataLength);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private static int checksum(byte[] key, byte[] data) {
+        var crc = new CRC32();
+        crc.update(key);
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private void markDead(Entry entry) {
+        if (entry != null) {
+            entry.segment.deadBytes.addAndGet(entry.recordLength);
+        }
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        var segment = Segment.open(id, directory.resolve(String.format("%08d%s", id, SEGMENT_SUFFIX)));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    @Override
+    public String locate(String key, long size) {
+        return PREFIX + key;
+    }
+
+    @Override
+    public boolean owns(String location) {
+        return location.startsWith(PREFIX);
+    }
+
+    @Override
+    public long write(String location, InputStream content) throws IOException {
+        var data = content.readNBytes(maxBlobBytes + 1);
+        if (data.length > maxBlobBytes) {
+            throw new IOException("Content is larger than " + maxBlobBytes + " bytes: " + location);
+        }
+        var key = getKey(location);
+        writeLock.lock();
+        try {
+            markDead(index.put(key, append(PUT, key, data)));
+        } finally {
+            writeLock.unlock();
+        }
+        return data.length;
+    }
+
+    /* вызывается под writeLock */
+    private Entry append(byte type, String key, byte[] data) throws IOException {
+        var keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        var recordLength = HEADER_BYTES + keyBytes.length + data.length;
+        if (active.size > 0 && active.size + recordLength > segmentBytes) {
+            active.channel.force(false);
+            active.remap();
+            active = createSegment(active.id + 1);
+        }
+        var record = ByteBuffer.allocate(recordLength)
+                .putInt(MAGIC)
+                .put(type)
+                .putInt(keyBytes.length)
+                .putInt(data.length)
+                .putInt(checksum(keyBytes, data))
+                .put(keyBytes)
+                .put(data)
+                .flip();
+        var offset = active.size;
+        while (record.hasRemaining()) {
+            active.channel.write(record, offset + record.position());
+        }
+        active.channel.force(false);
+        active.size += recordLength;
+        return new Entry(active, offset, recordLength, offset + HEADER_BYTES + keyBytes.length, data.length);
+    }
+
+    @Override
+    public Resource read(String location) {
+        var entry = index.get(getKey(location));
+        if (entry == null) {
+            throw new RuntimeException(new NoSuchFileException(location));
+        }
+        return new PackResource(entry.segment.slice(entry.dataOffset, entry.dataLength), location);
+    }
+
+    @Override
+    public boolean exists(String location) {
+        return index.containsKey(getKey(location));
+    }
+
+    @Override
+    public void delete(String location) {
+        var key = getKey(location);
+        writeLock.lock();
+        try {
+            var previous = index.remove(key);
+            if (previous != null) {
+                markDead(previous);
+                markDead(append(DELETE, key, new byte[0]));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public static String getKey(String location) {
+        return location.substring(PREFIX.length());
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Pack compaction failed", e);
+        }
+    }
+
+    /* переписывает закрытые сегменты, в которых доля мёртвых байтов не меньше порога */
+    public synchronized void compact() throws IOException {
+        for (var segment : new ArrayList<>(segments.values())) {
+            if (segment != active && segment.deadBytes.get() >= compactionThreshold * segment.size) {
+                compact(segment);
+            }
+        }
+    }
+
+    private void compact(Segment segment) throws IOException {
+        long position = 0;
+        long moved = 0;
+        while (position < segment.size) {
+            var header = segment.slice(position, HEADER_BYTES);
+            header.getInt();
+            var type = header.get();
+            var keyLength = header.getInt();
+            var dataLength = header.getInt();
+            var keyBytes = new byte[keyLength];
+            segment.slice(position + HEADER_BYTES, keyLength).get(keyBytes);
+            var key = new String(keyBytes, StandardCharsets.UTF_8);
+            var data = new byte[dataLength];
+            segment.slice(position + HEADER_BYTES + keyLength, dataLength).get(data);
+            writeLock.lock();
+            try {
+                var entry = index.get(key);
+                if (type == PUT && entry != null && entry.segment == segment && entry.recordOffset == position) {
+                    index.put(key, append(PUT, key, data));
+                    moved += dataLength;
+                } else if (type == DELETE && entry == null && isTombstoneNeeded(segment)) {
+                    /* удалённые данные могут лежать в более старом сегменте: без надгробия они воскреснут при старте */
+                    markDead(append(DELETE, key, new byte[0]));
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            position += HEADER_BYTES + keyLength + dataLength;
+        }
+        segments.remove(segment.id);
+        segment.channel.close();
+        Files.deleteIfExists(segment.path);
+        LOG.info("Compacted pack segment {}: {} live bytes moved", segment.path, moved);
+    }
+
+    /*
+     * Номер сегмента последней версии не годится: более ранняя версия, перезаписанная до удаления,
+     * может лежать в сегменте ещё старше. Записи в сегментах младше уплотняемого сделаны после
+     * надгробия или перенесены живыми, поэтому удалённых им версий там нет.
+     */
+    private boolean isTombstoneNeeded(Segment segment) {
+        return !segments.headMap(segment.id, false).isEmpty();
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdownNow();
+        writeLock.lock();
+        try {
+            for (var segment : segments.values()) {
+                segment.channel.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private record Entry(Segment segment, long recordOffset, int recordLength, long dataOffset, int dataLength) {
+    }
+
+    private record Record(byte type, String key, int length, int dataLength) {
+    }
+
+    private static final class Segment {
+        private final int id;
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private final AtomicLong deadBytes = new AtomicLong();
+
+        private volatile long size;
+
+        private volatile MappedByteBuffer mapped;
+
+        private Segment(int id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        static Segment open(int id, Path path) throws IOException {
+            return new Segment(id, path, FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        }
+
+        /* отображение остаётся действительным и после удаления файла, поэтому начатые чтения не ломаются */
+        ByteBuffer slice(long offset, int length) {
+            var buffer = mapped;
+            if (buffer == null || offset + length > buffer.capacity()) {
+                buffer = remap();
+            }
+            return buffer.slice((int) offset, length);
+        }
+
+        synchronized MappedByteBuffer remap() {
+            if (mapped == null || mapped.capacity() < size) {
+                try {
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return mapped;
+        }
+    }
+
+    private static final class PackResource extends AbstractResource {
+        private final ByteBuffer content;
+
+        private final String location;
+
+        private PackResource(ByteBuffer content, String location) {
+            this.content = content;
+            this.location = location;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteBufferInputStream(content.duplicate());
+        }
+
+        @Override
+        public byte[] getContentAsByteArray() {
+            var bytes = new byte[content.remaining()];
+            content.duplicate().get(bytes);
+            return bytes;
+        }
+
+        @Override
+        public long contentLength() {
+            return content.remaining();
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public String getFilename() {
+            return location;
+        }
+
+        @Override
+        public String getDescription() {
+            return "pack resource [" + location + "]";
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return length == 0 ? 0 : -1;
+            }
+            var count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            var skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ru.job4j.dreamjob.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * Новое содержимое до заданного размера попадает в хранилище мелких файлов, остальное - в основное.
+ * Чтение и удаление направляются по расположению, поэтому уже сохранённые файлы остаются доступны
+ * при любой смене настроек.
+ *
+ * Расположение в хранилище мелких файлов выбирается заранее, а уменьшенные копии получают его от оригинала,
+ * поэтому при записи размер проверяется ещё раз: содержимое, которое не влезает, ложится в основное хранилище
+ * под тем же ключом, и все операции с таким расположением ищут его и там.
+ */
+public class RoutingFileStorage implements FileStorage, Closeable {
+    private final FileStorage defaultStorage;
+
+    private final PackFileStorage smallFileStorage;
+
+    private final long maxSmallFileBytes;
+
+    public RoutingFileStorage(FileStorage defaultStorage, PackFileStorage smallFileStorage, long maxSmallFileBytes) {
+        this.defaultStorage = defaultStorage;
+        this.smallFileStorage = smallFileStorage;
+        this.maxSmallFileBytes = maxSmallFileBytes;
+    }
+
+    @Override
+    public String locate(String key, long size) {
+        var storage = size > 0 && size <= maxSmallFileBytes ? smallFileStorage : defaultStorage;
+        return storage.locate(key, size);
+    }
+
+    @Override
+    public boolean owns(String location) {
+        return true;
+    }
+
+    @Override
+    public long write(String location, InputStream content) throws IOException {
+        if (!smallFileStorage.owns(location)) {
+            return defaultStorage.write(location, content);
+        }
+        var head = content.readNBytes((int) maxSmallFileBytes + 1);
+        if (head.length <= maxSmallFileBytes) {
+            defaultStorage.delete(getOverflowLocation(location));
+            return smallFileStorage.write(location, new ByteArrayInputStream(head));
+        }
+        var size = defaultStorage.write(getOverflowLocation(location),
+                new SequenceInputStream(new ByteArrayInputStream(head), content));
+        smallFileStorage.delete(location);
+        return size;
+    }
+
+    @Override
+    public Resource read(String location) {
+        if (smallFileStorage.owns(location) && !smallFileStorage.exists(location)) {
+            return defaultStorage.read(getOverflowLocation(location));
+        }
+        return getStorage(location).read(location);
+    }
+
+    @Override
+    public boolean exists(String location) {
+        if (smallFileStorage.owns(location)) {
+            return smallFileStorage.exists(location) || defaultStorage.exists(getOverflowLocation(location));
+        }
+        return defaultStorage.exists(location);
+    }
+
+    @Override
+    public void delete(String location) {
+        if (smallFileStorage.owns(location)) {
+            smallFileStorage.delete(location);
+            defaultStorage.delete(getOverflowLocation(location));
+        } else {
+            defaultStorage.delete(location);
+        }
+    }
+
+    private FileStorage getStorage(String location) {
+        return smallFileStorage.owns(location) ? smallFileStorage : defaultStorage;
+    }
+
+    private String getOverflowLocation(String location) {
+        return defaultStorage.locate(PackFileStorage.getKey(location), maxSmallFileBytes + 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (var storage : new FileStorage[]{smallFileStorage, defaultStorage}) {
+            if (storage instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ru.job4j.dreamjob.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BoundedCacheTest {
+
+    @Test
+    void whenWeightExceededThenLeastRecentlyUsedEvicted() {
+        var cache = new BoundedCache<Integer, String>(6, String::length, new LruEvictionPolicy<>());
+        cache.put(1, "aa");
+        cache.put(2, "bb");
+        cache.put(3, "cc");
+        cache.get(1);
+
+        cache.put(4, "dd");
+
+        assertThat(cache.get(2)).isNull();
+        assertThat(cache.get(1)).isEqualTo("aa");
+        assertThat(cache.get(3)).isEqualTo("cc");
+        assertThat(cache.get(4)).isEqualTo("dd");
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        assertThat(cache.stats().weight()).isEqualTo(6);
+    }
+
+    @Test
+    void whenValueHeavierThanBudgetThenNotCached() {
+        var cache = new BoundedCache<Integer, String>(2, String::length, new LruEvictionPolicy<>());
+
+        assertThat(cache.put(1, "abc")).isFalse();
+        assertThat(cache.get(1)).isNull();
+    }
+
+    @Test
+    void whenCandidateRarerThanVictimThenTinyLfuRejectsIt() {
+        var cache = new BoundedCache<Integer, String>(2, String::length, new TinyLfuEvictionPolicy<>(16));
+        cache.put(1, "aa");
+        for (int i = 0; i < 5; i++) {
+            cache.get(1);
+        }
+
+        assertThat(cache.put(2, "bb")).isFalse();
+        assertThat(cache.get(1)).isEqualTo("aa");
+        for (int i = 0; i < 10; i++) {
+            cache.get(2);
+        }
+        assertThat(cache.put(2, "bb")).isTrue();
+        assertThat(cache.get(1)).isNull();
+    }
+
+    @Test
+    void whenTinyLfuRejectsSecondVictimThenNothingEvicted() {
+        var cache = new BoundedCache<Integer, String>(4, String::length, new TinyLfuEvictionPolicy<>(16));
+        cache.put(1, "aa");
+        cache.put(2, "bb");
+        cache.get(3);
+        for (int i = 0; i < 5; i++) {
+            cache.get(2);
+        }
+
+        assertThat(cache.wouldAdmit(3, 4)).isFalse();
+        assertThat(cache.put(3, "cccc")).isFalse();
+        assertThat(cache.get(1)).isEqualTo("aa");
+        assertThat(cache.get(2)).isEqualTo("bb");
+        assertThat(cache.stats().evictions()).isZero();
+    }
+
+    @Test
+    void whenReplacementRejectedThenOldValueKept() {
+        var cache = new BoundedCache<Integer, String>(4, String::length, new TinyLfuEvictionPolicy<>(16));
+        cache.put(1, "aa");
+        cache.put(2, "bb");
+        for (int i = 0; i < 5; i++) {
+            cache.get(2);
+        }
+
+        assertThat(cache.put(1, "aaaa")).isFalse();
+        assertThat(cache.get(1)).isEqualTo("aa");
+        assertThat(cache.stats().weight()).isEqualTo(4);
+    }
+
+    @Test
+    void whenInvalidatedThenMissCounted() {
+        var cache = new BoundedCache<Integer, String>(10, String::length, new LruEvictionPolicy<>());
+        cache.put(1, "a");
+        cache.get(1);
+
+        cache.invalidateIf(key -> key == 1);
+        cache.get(1);
+
+        var stats = cache.stats();
+        assertThat(stats.hits()).isEqualTo(1);
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(stats.size()).isZero();
+        assertThat(stats.hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void whenTimeToLivePassedThenValueExpired() {
+        var now = new AtomicLong();
+        var cache = new BoundedCache<Integer, String>(6, String::length, new LruEvictionPolicy<>(),
+                Duration.ofSeconds(10), now::get);
+        cache.put(1, "aa");
+        now.addAndGet(Duration.ofSeconds(9).toNanos());
+
+        assertThat(cache.get(1)).isEqualTo("aa");
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.stats().size()).isZero();
+        assertThat(cache.stats().weight()).isZero();
+        assertThat(cache.stats().hitRate()).isEqualTo(0.5);
+    }
+}
@@ -0,0 +1,56 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.*;
+
+class InstrumentedDataSourceTest {
+    private InstrumentedDataSource createPool(int maxTotal, Duration maxWait) throws IOException {
+        var properties = new Properties();
+        try (var inputStream = getClass().getClassLoader().getResourceAsStream("connection.properties")) {
+            properties.load(inputStream);
+        }
+        var defaults = PoolSettings.DEFAULT;
+        var settings = new PoolSettings(0, maxTotal, 0, maxTotal, maxWait, defaults.testOnBorrow(),
+                defaults.testWhileIdle(), defaults.validationTimeout(), defaults.evictionInterval(),
+                defaults.minEvictableIdleTime(), defaults.numTestsPerEvictionRun(), defaults.maxConnectionLifetime(),
+                true, 10);
+        return new DatasourceConfiguration().connectionPool(properties.getProperty("datasource.url"),
+                properties.getProperty("datasource.username"), properties.getProperty("datasource.password"), settings);
+    }
+
+    @Test
+    public void whenConnectionsBorrowedThenCountedInStats() throws Exception {
+        try (var pool = createPool(2, Duration.ofSeconds(1))) {
+            try (var connection = pool.getConnection()) {
+                assertThat(pool.stats().active()).isEqualTo(1);
+            }
+            pool.getConnection().close();
+
+            var stats = pool.stats();
+            assertThat(stats.borrowed()).isEqualTo(2);
+            assertThat(stats.active()).isZero();
+            assertThat(stats.idle()).isEqualTo(1);
+            assertThat(stats.waitHistogram().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(2);
+            assertThat(stats.timeouts()).isZero();
+        }
+    }
+
+    @Test
+    public void whenPoolExhaustedThenBorrowTimesOutAndCounted() throws Exception {
+        try (var pool = createPool(1, Duration.ofMillis(50));
+             var connection = pool.getConnection()) {
+            assertThatThrownBy(pool::getConnection).isInstanceOf(SQLException.class);
+
+            var stats = pool.stats();
+            assertThat(stats.timeouts()).isEqualTo(1);
+            assertThat(stats.borrowed()).isEqualTo(1);
+            assertThat(stats.maxTotal()).isEqualTo(1);
+        }
+    }
+}
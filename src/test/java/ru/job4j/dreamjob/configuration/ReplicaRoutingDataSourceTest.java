@@ -0,0 +1,112 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.sql2o.Sql2o;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ReplicaRoutingDataSourceTest {
+    private final DatasourceConfiguration configuration = new DatasourceConfiguration();
+
+    private final List<InstrumentedDataSource> pools = new ArrayList<>();
+
+    private ReplicaRoutingDataSource routing;
+
+    private Sql2o sql2o;
+
+    /* каждая база - отдельная H2 в памяти, которая знает только своё имя */
+    private InstrumentedDataSource createNode(String name) {
+        var pool = configuration.connectionPool("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "", "");
+        try (var connection = pool.getConnection(); var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS node(name VARCHAR)");
+            statement.execute("DELETE FROM node");
+            statement.execute("INSERT INTO node VALUES ('" + name + "')");
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        pools.add(pool);
+        return pool;
+    }
+
+    private void route(List<InstrumentedDataSource> replicas) {
+        routing = new ReplicaRoutingDataSource(createNode("primary"), replicas, 0);
+        sql2o = configuration.databaseClient(routing);
+    }
+
+    private String read() {
+        try (var connection = ReplicaRouting.read(sql2o::open)) {
+            return connection.createQuery("SELECT name FROM node").executeScalar(String.class);
+        }
+    }
+
+    private String write() {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery("SELECT name FROM node").executeScalar(String.class);
+        }
+    }
+
+    @AfterEach
+    public void closePools() throws SQLException {
+        ReplicaRouting.end();
+        routing.close();
+        for (var pool : pools) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void whenReadOutsideRequestThenPrimary() {
+        route(List.of(createNode("replica1")));
+
+        assertThat(read()).isEqualTo("primary");
+    }
+
+    @Test
+    public void whenReadsInRequestThenReplicasInTurn() {
+        route(List.of(createNode("replica1"), createNode("replica2")));
+        ReplicaRouting.begin(false);
+
+        assertThat(List.of(read(), read(), read())).containsExactly("replica1", "replica2", "replica1");
+        assertThat(ReplicaRouting.end()).isFalse();
+        assertThat(routing.stats()).extracting(stats -> stats.reads()).containsExactly(2L, 1L);
+    }
+
+    @Test
+    public void whenWrittenInRequestThenLaterReadsFromPrimary() {
+        route(List.of(createNode("replica1")));
+        ReplicaRouting.begin(false);
+
+        assertThat(read()).isEqualTo("replica1");
+        assertThat(write()).isEqualTo("primary");
+        assertThat(read()).isEqualTo("primary");
+        assertThat(ReplicaRouting.end()).isTrue();
+    }
+
+    @Test
+    public void whenRequestPinnedToPrimaryThenReadsFromPrimary() {
+        route(List.of(createNode("replica1")));
+        ReplicaRouting.begin(true);
+
+        assertThat(read()).isEqualTo("primary");
+    }
+
+    @Test
+    public void whenReplicaUnavailableThenSkippedUntilHealthy() {
+        var missing = configuration.connectionPool("jdbc:h2:mem:missing;IFEXISTS=TRUE", "", "");
+        pools.add(missing);
+        route(List.of(missing, createNode("replica2")));
+        ReplicaRouting.begin(false);
+
+        assertThat(List.of(read(), read(), read())).containsExactly("replica2", "replica2", "replica2");
+        assertThat(routing.stats()).extracting(stats -> stats.healthy()).containsExactly(false, true);
+
+        routing.checkReplicas();
+
+        assertThat(routing.stats()).extracting(stats -> stats.healthy()).containsExactly(false, true);
+    }
+}
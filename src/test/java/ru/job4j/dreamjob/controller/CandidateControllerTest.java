@@ -7,13 +7,17 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.ui.ConcurrentModel;
 import org.springframework.web.multipart.MultipartFile;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.Page;
 import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.CandidateSummary;
 import ru.job4j.dreamjob.service.CandidateService;
+import ru.job4j.dreamjob.service.FileService;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
+import static java.time.LocalDateTime.now;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -21,29 +25,30 @@ import static org.mockito.Mockito.when;
 
 class CandidateControllerTest {
     private CandidateService candidateService;
+    private FileService fileService;
     private CandidateController candidateController;
     private MultipartFile testFile;
 
     @BeforeEach
     void initServices() {
         candidateService = mock(CandidateService.class);
-        candidateController = new CandidateController(candidateService);
+        fileService = mock(FileService.class);
+        candidateController = new CandidateController(candidateService, fileService);
         testFile = new MockMultipartFile("testFile.img", new byte[]{1, 2, 3});
     }
 
     @Test
     void whenRequestCandidateListPageThenGetPageWithCandidates() {
-        var candidate1 = new Candidate(1, "test1", "desc1", 1);
-        var candidate2 = new Candidate(2, "test2", "desc2", 1);
+        var candidate1 = new CandidateSummary(1, "test1", now());
+        var candidate2 = new CandidateSummary(2, "test2", now());
         var expectedCandidates = List.of(candidate1, candidate2);
-        when(candidateService.findAll()).thenReturn(expectedCandidates);
+        when(candidateService.findPage(null, null, 20)).thenReturn(new Page<>(expectedCandidates, null, null));
 
         var model = new ConcurrentModel();
-        var view = candidateController.getAll(model);
+        var view = candidateController.getAll(model, null, null, 20);
 
         assertThat(view).isEqualTo("candidates/list");
-        assertThat(model.getAttribute("candidates")).isSameAs(expectedCandidates);
-
+        assertThat(model.getAttribute("candidates")).isEqualTo(expectedCandidates);
     }
 
     @Test
@@ -56,7 +61,7 @@ class CandidateControllerTest {
     @Test
     void whenPostCandidateWithFileThenRedirectToCandidates() throws IOException {
         var candidate = new Candidate(1, "test1", "desc1", 1);
-        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile.getBytes());
+        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile, testFile.getSize());
         var candidateArgumentCaptor = ArgumentCaptor.forClass(Candidate.class);
         var fileDtoArgumentCaptor = ArgumentCaptor.forClass(FileDto.class);
         when(candidateService.save(candidateArgumentCaptor.capture(), fileDtoArgumentCaptor.capture())).thenReturn(candidate);
@@ -111,7 +116,7 @@ class CandidateControllerTest {
     @Test
     void whenCandidateUpdatedThenRedirectToCandidates() throws IOException {
         var candidate = new Candidate(1, "test1", "desc1", 1);
-        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile.getBytes());
+        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile, testFile.getSize());
         var candidateArgumentCaptor = ArgumentCaptor.forClass(Candidate.class);
         var fileDtoArgumentCaptor = ArgumentCaptor.forClass(FileDto.class);
         when(candidateService.update(candidateArgumentCaptor.capture(), fileDtoArgumentCaptor.capture())).thenReturn(true);
@@ -3,52 +3,210 @@ package ru.job4j.dreamjob.controller;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.web.multipart.MultipartFile;
-import ru.job4j.dreamjob.dto.FileDto;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.job4j.dreamjob.dto.FileResourceDto;
 import ru.job4j.dreamjob.service.FileService;
 
-import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class FileControllerTest {
 
     private FileService fileService;
     private FileController fileController;
-    private MultipartFile testFile;
+    private ByteArrayResource testResource;
 
     @BeforeEach
     void initServices() {
         fileService = Mockito.mock(FileService.class);
         fileController = new FileController(fileService);
-        testFile = new MockMultipartFile("testFile.img", new byte[]{1, 2, 3});
+        testResource = new ByteArrayResource(new byte[]{1, 2, 3});
+        when(fileService.cacheContent(anyInt(), anyInt(), any())).thenAnswer(invocation -> invocation.getArgument(2));
+    }
+
+    private HttpHeaders ifNoneMatch(String value) {
+        var headers = new HttpHeaders();
+        headers.set(HttpHeaders.IF_NONE_MATCH, value);
+        return headers;
+    }
+
+    private HttpHeaders range(String value) {
+        var headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, value);
+        return headers;
     }
 
     @Test
-    void whenFileExistsThenReturnOkWithContent() throws IOException {
+    void whenFileExistsThenReturnOkWithStreamedContent() {
         int id = 10;
-        when(fileService.getFileById(id)).thenReturn(Optional.of(new FileDto(testFile.getOriginalFilename(), testFile.getBytes())));
+        when(fileService.getFileMetadataById(id, 0)).thenReturn(Optional.of(
+                new FileResourceDto("testFile.png", MediaType.IMAGE_PNG, 3, "abc", testResource)));
 
-        var response = fileController.getById(id);
+        var response = fileController.getById(id, 0, new HttpHeaders());
 
         assertThat(response).isNotNull();
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).isEqualTo(testFile.getBytes());
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(3);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"abc\"");
+        assertThat(response.getHeaders().getCacheControl()).contains("immutable");
+        assertThat(response.getBody()).isSameAs(testResource);
+    }
+
+    @Test
+    void whenIfNoneMatchEqualsETagThenReturnNotModifiedWithoutBody() {
+        int id = 10;
+        when(fileService.getFileMetadataById(id, 0)).thenReturn(Optional.of(
+                new FileResourceDto("testFile.png", MediaType.IMAGE_PNG, 3, "abc", testResource)));
+
+        var response = fileController.getById(id, 0, ifNoneMatch("\"other\", \"abc\""));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"abc\"");
+        assertThat(response.getBody()).isNull();
+        verify(fileService, never()).cacheContent(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void whenIfNoneMatchDiffersThenReturnOk() {
+        int id = 10;
+        when(fileService.getFileMetadataById(id, 0)).thenReturn(Optional.of(
+                new FileResourceDto("testFile.png", MediaType.IMAGE_PNG, 3, "abc", testResource)));
+
+        var response = fileController.getById(id, 0, ifNoneMatch("\"other\""));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isSameAs(testResource);
     }
 
     @Test
     void whenFileNotFoundThenReturnNotFound() {
         int id = 10;
-        when(fileService.getFileById(id)).thenReturn(Optional.empty());
+        when(fileService.getFileMetadataById(id, 0)).thenReturn(Optional.empty());
 
-        var response = fileController.getById(id);
+        var response = fileController.getById(id, 0, new HttpHeaders());
 
         assertThat(response).isNotNull();
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
         assertThat(response.getBody()).isNull();
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenSingleRangeRequestedThenRegionIsWrittenAsPartialContent() throws Exception {
+        int id = 10;
+        when(fileService.getFileMetadataById(id, 0)).thenReturn(Optional.of(
+                new FileResourceDto("testFile.png", MediaType.IMAGE_PNG, 3, "abc", testResource)));
+        var mockMvc = MockMvcBuilders.standaloneSetup(fileController).build();
+
+        mockMvc.perform(get("/files/{id}", id).header(HttpHeaders.RANGE, "bytes=1-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1-2/3"))
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(content().bytes(new byte[]{2, 3}));
+    }
+
+    @Test
+    void whenSingleRangeRequestedThenReturnPartialContentRegion() {
+        int id = 10;
+        when(fileService.getFileMetadataById(id, 0)).thenReturn(Optional.of(
+                new FileResourceDto("testFile.png", MediaType.IMAGE_PNG, 3, "abc", testResource)));
+
+        var response = fileController.getRangeById(id, 0, range("bytes=1-"));
+        var region = response.getBody().get(0);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(region.getResource()).isSameAs(testResource);
+        assertThat(region.getPosition()).isEqualTo(1);
+        assertThat(region.getCount()).isEqualTo(2);
+        verify(fileService, never()).cacheContent(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void whenSeveralRangesRequestedThenReturnAllRegions() {
+        int id = 10;
+        when(fileService.getFileMetadataById(id, 0)).thenReturn(Optional.of(
+                new FileResourceDto("testFile.png", MediaType.IMAGE_PNG, 3, "abc", testResource)));
+
+        var response = fileController.getRangeById(id, 0, range("bytes=0-0, -1"));
+        var regions = response.getBody();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(regions).hasSize(2);
+        assertThat(regions.get(1).getPosition()).isEqualTo(2);
+    }
+
+    @Test
+    void whenRangeOutsideFileThenReturnNotSatisfiable() {
+        int id = 10;
+        when(fileService.getFileMetadataById(id, 0)).thenReturn(Optional.of(
+                new FileResourceDto("testFile.png", MediaType.IMAGE_PNG, 3, "abc", testResource)));
+
+        var response = fileController.getRangeById(id, 0, range("bytes=5-10"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */3");
+    }
+
+    @Test
+    void whenThumbnailNotReadyThenOriginalIsNotCachedForever() {
+        int id = 10;
+        var original = new FileResourceDto("testFile.png", MediaType.IMAGE_PNG, 3, "abc", testResource);
+        original.setFallback(true);
+        when(fileService.getFileMetadataById(id, 256)).thenReturn(Optional.of(original));
+
+        var response = fileController.getById(id, 256, new HttpHeaders());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getCacheControl()).contains("no-cache").doesNotContain("immutable");
+        assertThat(response.getBody()).isSameAs(testResource);
+    }
+
+    @Test
+    void whenNotModifiedSinceUploadThenReturnNotModified() {
+        int id = 10;
+        var uploaded = LocalDateTime.of(2024, 5, 1, 12, 0, 0);
+        var content = new FileResourceDto("testFile.png", MediaType.IMAGE_PNG, 3, null, testResource);
+        content.setLastModified(uploaded);
+        when(fileService.getFileMetadataById(id, 0)).thenReturn(Optional.of(content));
+        var requestHeaders = new HttpHeaders();
+        requestHeaders.setIfModifiedSince(uploaded.atZone(ZoneId.systemDefault()));
+
+        var response = fileController.getById(id, 0, requestHeaders);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getLastModified())
+                .isEqualTo(uploaded.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    @Test
+    void whenHeadRequestedThenHeadersComeFromMetadataWithoutReadingContent() {
+        int id = 10;
+        when(fileService.getFileMetadataById(id, 0)).thenReturn(Optional.of(
+                new FileResourceDto("testFile.png", MediaType.IMAGE_PNG, 3, "abc", testResource)));
+
+        var response = fileController.headById(id, 0, new HttpHeaders());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(3);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_PNG);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"abc\"");
+        assertThat(response.getBody()).isNull();
+        verify(fileService, never()).cacheContent(anyInt(), anyInt(), any());
+    }
+}
@@ -7,9 +7,15 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.ui.ConcurrentModel;
 import org.springframework.web.multipart.MultipartFile;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.Page;
+import ru.job4j.dreamjob.dto.VacancyFilter;
 import ru.job4j.dreamjob.model.City;
+import ru.job4j.dreamjob.model.File;
 import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.model.VacancySummary;
 import ru.job4j.dreamjob.service.CityService;
+import ru.job4j.dreamjob.service.FileService;
+import ru.job4j.dreamjob.service.VacancyImporter;
 import ru.job4j.dreamjob.service.VacancyService;
 
 import java.io.IOException;
@@ -24,6 +30,7 @@ public class VacancyControllerTest {
 
     private VacancyService vacancyService;
     private CityService cityService;
+    private FileService fileService;
     private VacancyController vacancyController;
     private MultipartFile testFile;
 
@@ -31,23 +38,52 @@ public class VacancyControllerTest {
     public void initServices() {
         vacancyService = mock(VacancyService.class);
         cityService = mock(CityService.class);
-        vacancyController = new VacancyController(vacancyService, cityService);
+        fileService = mock(FileService.class);
+        vacancyController = new VacancyController(vacancyService, cityService, fileService, mock(VacancyImporter.class));
         testFile = new MockMultipartFile("testFile.img", new byte[]{1, 2, 3});
     }
 
     @Test
     public void whenRequestVacancyListPageThenGetPageWithVacancies() {
-        var vacancy1 = new Vacancy(1, "test1", "desc1", now(), true, 1, 2);
-        var vacancy2 = new Vacancy(2, "test2", "desc2", now(), false, 3, 4);
+        var vacancy1 = new VacancySummary(1, "test1", now(), true, "Москва");
+        var vacancy2 = new VacancySummary(2, "test2", now(), false, "Екатеринбург");
         var expectedVacancies = List.of(vacancy1, vacancy2);
-        when(vacancyService.findAll()).thenReturn(expectedVacancies);
+        var page = new Page<>(expectedVacancies, vacancy2.creationDate() + "_2", null);
+        when(vacancyService.findPage(VacancyFilter.NONE, null, null, 20)).thenReturn(page);
 
         var model = new ConcurrentModel();
-        var view = vacancyController.getAll(model);
+        var view = vacancyController.getAll(model, VacancyFilter.NONE, null, null, 20);
         var actualVacancies = model.getAttribute("vacancies");
 
         assertThat(view).isEqualTo("vacancies/list");
         assertThat(actualVacancies).isEqualTo(expectedVacancies);
+        assertThat(model.getAttribute("page")).isSameAs(page);
+    }
+
+    @Test
+    public void whenRequestTooLargePageThenSizeLimited() {
+        var after = now() + "_10";
+        when(vacancyService.findPage(VacancyFilter.NONE, after, null, 1000)).thenReturn(new Page<>(List.of(), null, null));
+
+        var model = new ConcurrentModel();
+        vacancyController.getAll(model, VacancyFilter.NONE, after, null, 1000);
+
+        assertThat(model.getAttribute("size")).isEqualTo(Page.MAX_SIZE);
+    }
+
+    @Test
+    public void whenSearchThenGetSearchPageWithFoundVacancies() {
+        var found = List.of(new VacancySummary(1, "Java", now(), true, "Москва"));
+        var page = new Page<>(found, "3", "1");
+        when(vacancyService.search("java", 2, 20)).thenReturn(page);
+
+        var model = new ConcurrentModel();
+        var view = vacancyController.search(model, "java", 2, 20);
+
+        assertThat(view).isEqualTo("vacancies/search");
+        assertThat(model.getAttribute("vacancies")).isEqualTo(found);
+        assertThat(model.getAttribute("page")).isSameAs(page);
+        assertThat(model.getAttribute("query")).isEqualTo("java");
     }
 
     @Test
@@ -68,7 +104,7 @@ public class VacancyControllerTest {
     @Test
     public void whenPostVacancyWithFileThenSameDataAndRedirectToVacanciesPage() throws Exception {
         var vacancy = new Vacancy(1, "test1", "desc1", now(), true, 1, 2);
-        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile.getBytes());
+        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile, testFile.getSize());
         var vacancyArgumentCaptor = ArgumentCaptor.forClass(Vacancy.class);
         var fileDtoArgumentCaptor = ArgumentCaptor.forClass(FileDto.class);
         when(vacancyService.save(vacancyArgumentCaptor.capture(), fileDtoArgumentCaptor.capture())).thenReturn(vacancy);
@@ -119,6 +155,8 @@ public class VacancyControllerTest {
         var expectedCities = List.of(city1, city2);
         when(vacancyService.findById(vacancy.getId())).thenReturn(Optional.of(vacancy));
         when(cityService.findAll()).thenReturn(expectedCities);
+        var file = new File("logo.png", "files/lo/go/logo.png");
+        when(fileService.findById(vacancy.getFileId())).thenReturn(Optional.of(file));
 
         var model = new ConcurrentModel();
         var view = vacancyController.getById(model, vacancy.getId());
@@ -126,6 +164,7 @@ public class VacancyControllerTest {
         assertThat(view).isEqualTo("vacancies/one");
         assertThat(vacancy).isSameAs(model.getAttribute("vacancy"));
         assertThat(expectedCities).isSameAs(model.getAttribute("cities"));
+        assertThat(file).isSameAs(model.getAttribute("file"));
     }
 
     @Test
@@ -145,7 +184,7 @@ public class VacancyControllerTest {
     @Test
     void whenVacancyUpdatedThenRedirectToVacancies() throws IOException {
         var vacancy = new Vacancy(1, "test1", "desc1", now(), true, 1, 2);
-        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile.getBytes());
+        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile, testFile.getSize());
         var vacancyArgumentCaptor = ArgumentCaptor.forClass(Vacancy.class);
         var fileDtoArgumentCaptor = ArgumentCaptor.forClass(FileDto.class);
         when(vacancyService.update(vacancyArgumentCaptor.capture(), fileDtoArgumentCaptor.capture())).thenReturn(true);
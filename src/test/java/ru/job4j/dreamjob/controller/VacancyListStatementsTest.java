@@ -0,0 +1,115 @@
+package ru.job4j.dreamjob.controller;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.Sql2oCityRepository;
+import ru.job4j.dreamjob.repository.Sql2oFileRepository;
+import ru.job4j.dreamjob.repository.Sql2oVacancyRepository;
+import ru.job4j.dreamjob.repository.StatementCounter;
+import ru.job4j.dreamjob.service.FileCleaner;
+import ru.job4j.dreamjob.service.FileService;
+import ru.job4j.dreamjob.service.SimpleCityService;
+import ru.job4j.dreamjob.service.SimpleVacancyService;
+import ru.job4j.dreamjob.service.VacancyImporter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/* весь запрос страницы списка - контроллер, сервис и отрисовка шаблона - против счётчика запросов к БД */
+class VacancyListStatementsTest {
+    private static Sql2oVacancyRepository sql2oVacancyRepository;
+
+    private static Sql2oFileRepository sql2oFileRepository;
+
+    private static SimpleCityService cityService;
+
+    private static StatementCounter statementCounter;
+
+    private static MockMvc mockMvc;
+
+    private static File file;
+
+    @BeforeAll
+    public static void initController() throws Exception {
+        var properties = new Properties();
+        try (var inputStream = VacancyListStatementsTest.class.getClassLoader().getResourceAsStream("connection.properties")) {
+            properties.load(inputStream);
+        }
+        var configuration = new DatasourceConfiguration();
+        var datasource = configuration.connectionPool(properties.getProperty("datasource.url"),
+                properties.getProperty("datasource.username"), properties.getProperty("datasource.password"));
+        var sql2o = configuration.databaseClient(datasource);
+        sql2oVacancyRepository = new Sql2oVacancyRepository(sql2o, "index");
+        sql2oFileRepository = new Sql2oFileRepository(sql2o);
+        file = sql2oFileRepository.save(new File("test", "test"));
+
+        statementCounter = new StatementCounter(datasource);
+        var countedSql2o = configuration.databaseClient(statementCounter.dataSource());
+        cityService = new SimpleCityService(new Sql2oCityRepository(countedSql2o), 0);
+        var fileService = mock(FileService.class);
+        var vacancyService = new SimpleVacancyService(new Sql2oVacancyRepository(countedSql2o, "index"), fileService,
+                mock(FileCleaner.class));
+        var controller = new VacancyController(vacancyService, cityService, fileService, mock(VacancyImporter.class));
+
+        var templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        var templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        var viewResolver = new ThymeleafViewResolver();
+        viewResolver.setTemplateEngine(templateEngine);
+        viewResolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setViewResolvers(viewResolver).build();
+    }
+
+    @AfterAll
+    public static void deleteFile() {
+        cityService.shutdown();
+        sql2oFileRepository.deleteById(file.getId());
+    }
+
+    @AfterEach
+    public void clearVacancies() {
+        for (var vacancy : sql2oVacancyRepository.findAll()) {
+            sql2oVacancyRepository.deleteById(vacancy.getId());
+        }
+    }
+
+    @Test
+    public void whenListPageRequestedThenOneStatementServesPageWithCityNames() throws Exception {
+        var creationDate = LocalDateTime.now().withNano(0);
+        for (var i = 0; i < 25; i++) {
+            sql2oVacancyRepository.save(new Vacancy(0, "Vacancy " + i, "description", creationDate.plusMinutes(i),
+                    true, i % 3 + 1, file.getId()));
+        }
+        var user = new User();
+        user.setName("Гость");
+        statementCounter.reset();
+
+        var html = mockMvc.perform(get("/vacancies").requestAttr("user", user))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertThat(statementCounter.count()).isEqualTo(1);
+        assertThat(html).contains("Vacancy 24", "Екатеринбург", "Москва", "Санкт-Петербург")
+                .doesNotContain("Vacancy 4<");
+    }
+}
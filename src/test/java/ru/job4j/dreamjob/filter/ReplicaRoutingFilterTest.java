@@ -0,0 +1,85 @@
+package ru.job4j.dreamjob.filter;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.ReplicaRoutingDataSource;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ReplicaRoutingFilterTest {
+    private final ReplicaRoutingFilter filter = new ReplicaRoutingFilter(5);
+
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    public void initDataSource() {
+        var configuration = new DatasourceConfiguration();
+        routing = new ReplicaRoutingDataSource(
+                configuration.connectionPool("jdbc:h2:mem:filter;DB_CLOSE_DELAY=-1", "", ""), List.of(), 0);
+    }
+
+    @AfterEach
+    public void closeDataSource() throws SQLException {
+        routing.close();
+    }
+
+    /* write - запрос берёт соединение не для чтения; commit - ответ отправлен до выхода из фильтра */
+    private MockFilterChain chain(boolean write, boolean commit) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                if (write) {
+                    try (var connection = routing.getConnection()) {
+                        connection.isValid(1);
+                    } catch (SQLException e) {
+                        throw new IOException(e);
+                    }
+                }
+                if (commit) {
+                    response.flushBuffer();
+                }
+            }
+        });
+    }
+
+    @Test
+    public void whenReadWithoutSessionThenNoSessionCreated() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/css/style.css");
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain(false, false));
+
+        assertThat(request.getSession(false)).isNull();
+    }
+
+    @Test
+    public void whenWrittenThenSessionPinnedToPrimary() throws Exception {
+        var request = new MockHttpServletRequest("POST", "/vacancies/create");
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain(true, false));
+
+        assertThat(request.getSession(false)).isNotNull();
+        assertThat((Long) request.getSession(false).getAttribute("primaryUntil"))
+                .isGreaterThan(System.currentTimeMillis());
+    }
+
+    @Test
+    public void whenWrittenAfterResponseCommittedThenNoSessionCreated() throws Exception {
+        var request = new MockHttpServletRequest("POST", "/users/register");
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain(true, true));
+
+        assertThat(request.getSession(false)).isNull();
+    }
+}
@@ -0,0 +1,84 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.cache.BoundedCache;
+import ru.job4j.dreamjob.cache.LruEvictionPolicy;
+import ru.job4j.dreamjob.cache.ReadThroughCache;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.InstrumentedDataSource;
+import ru.job4j.dreamjob.configuration.ReplicaRouting;
+import ru.job4j.dreamjob.configuration.ReplicaRoutingDataSource;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/* реплика - отдельная H2, в которую изменения не доходят: это отставание без предела */
+class CachingVacancyRepositoryReplicaTest {
+    private final DatasourceConfiguration configuration = new DatasourceConfiguration();
+
+    private InstrumentedDataSource primary;
+
+    private InstrumentedDataSource replica;
+
+    private ReplicaRoutingDataSource routing;
+
+    private CachingVacancyRepository cachingVacancyRepository;
+
+    private InstrumentedDataSource createNode(String name) {
+        var pool = configuration.connectionPool("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "", "");
+        try (var connection = pool.getConnection(); var statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE vacancies(id INT PRIMARY KEY, title VARCHAR, description VARCHAR,
+                        creation_date TIMESTAMP, visible BOOLEAN, city_id INT, file_id INT)
+                    """);
+            statement.execute("INSERT INTO vacancies VALUES (1, 'old', 'description', NOW(), TRUE, 1, NULL)");
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return pool;
+    }
+
+    @BeforeEach
+    public void initRepository() {
+        primary = createNode("cachePrimary");
+        replica = createNode("cacheReplica");
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica), 0);
+        var vacancyRepository = new Sql2oVacancyRepository(configuration.databaseClient(routing), "index");
+        var cache = new BoundedCache<Integer, Vacancy>(10, value -> 1, new LruEvictionPolicy<>());
+        cachingVacancyRepository = new CachingVacancyRepository(vacancyRepository,
+                new ReadThroughCache<>(cache, CachingVacancyRepository::copy));
+    }
+
+    @AfterEach
+    public void closePools() throws SQLException {
+        ReplicaRouting.end();
+        for (var pool : List.of(primary, replica)) {
+            try (var connection = pool.getConnection(); var statement = connection.createStatement()) {
+                statement.execute("DROP TABLE vacancies");
+            }
+        }
+        routing.close();
+    }
+
+    @Test
+    public void whenUpdatedThenOtherSessionsSeeChangeThroughCache() {
+        ReplicaRouting.begin(false);
+        var vacancy = cachingVacancyRepository.findById(1).orElseThrow();
+        vacancy.setTitle("new");
+        cachingVacancyRepository.update(vacancy);
+        ReplicaRouting.end();
+
+        ReplicaRouting.begin(false);
+        var found = cachingVacancyRepository.findById(1).orElseThrow();
+        var cached = cachingVacancyRepository.findById(1).orElseThrow();
+
+        assertThat(found.getTitle()).isEqualTo("new");
+        assertThat(cached.getTitle()).isEqualTo("new");
+        assertThat(routing.stats()).extracting(stats -> stats.reads()).containsExactly(0L);
+    }
+}
@@ -0,0 +1,81 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.cache.BoundedCache;
+import ru.job4j.dreamjob.cache.LruEvictionPolicy;
+import ru.job4j.dreamjob.cache.ReadThroughCache;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingVacancyRepositoryTest {
+    private VacancyRepository vacancyRepository;
+
+    private CachingVacancyRepository cachingVacancyRepository;
+
+    private final Vacancy vacancy = new Vacancy(1, "title", "description", LocalDateTime.now(), true, 1, 2);
+
+    @BeforeEach
+    public void initRepository() {
+        vacancyRepository = mock(VacancyRepository.class);
+        var cache = new BoundedCache<Integer, Vacancy>(10, value -> 1, new LruEvictionPolicy<>());
+        cachingVacancyRepository = new CachingVacancyRepository(vacancyRepository,
+                new ReadThroughCache<>(cache, CachingVacancyRepository::copy));
+        when(vacancyRepository.findById(1)).thenReturn(Optional.of(vacancy));
+    }
+
+    @Test
+    public void whenFindByIdTwiceThenSecondReadFromCache() {
+        cachingVacancyRepository.findById(1);
+        var second = cachingVacancyRepository.findById(1).get();
+
+        verify(vacancyRepository, times(1)).findById(1);
+        assertThat(second).usingRecursiveComparison().isEqualTo(vacancy);
+        assertThat(cachingVacancyRepository.stats().hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void whenFoundVacancyChangedByCallerThenCachedCopyUnchanged() {
+        cachingVacancyRepository.findById(1).get().setTitle("changed");
+        cachingVacancyRepository.findById(1).get().setTitle("changed");
+
+        assertThat(cachingVacancyRepository.findById(1).get().getTitle()).isEqualTo("title");
+    }
+
+    @Test
+    public void whenUpdateOrDeleteThenNextFindReadsRepository() {
+        cachingVacancyRepository.findById(1);
+        cachingVacancyRepository.update(vacancy);
+        cachingVacancyRepository.findById(1);
+        cachingVacancyRepository.deleteById(1);
+        when(vacancyRepository.findById(1)).thenReturn(Optional.empty());
+
+        assertThat(cachingVacancyRepository.findById(1)).isEmpty();
+        verify(vacancyRepository, times(3)).findById(1);
+    }
+
+    @Test
+    public void whenUpdatedWhileLoadingThenLoadedVacancyNotCached() {
+        when(vacancyRepository.findById(1)).thenAnswer(invocation -> {
+            cachingVacancyRepository.update(vacancy);
+            return Optional.of(vacancy);
+        });
+
+        cachingVacancyRepository.findById(1);
+
+        assertThat(cachingVacancyRepository.stats().size()).isZero();
+    }
+
+    @Test
+    public void whenNotFoundThenAbsenceNotCached() {
+        cachingVacancyRepository.findById(2);
+        cachingVacancyRepository.findById(2);
+
+        verify(vacancyRepository, times(2)).findById(2);
+    }
+}
@@ -0,0 +1,144 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.dto.Cursor;
+import ru.job4j.dreamjob.dto.VacancyFilter;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.model.VacancySummary;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MemoryVacancyRepositoryTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    /* вакансий в начальных данных репозитория */
+    private static final int SEEDED = 6;
+
+    private MemoryVacancyRepository repository;
+
+    @BeforeEach
+    public void initRepository() {
+        repository = new MemoryVacancyRepository(new MemoryCityRepository());
+    }
+
+    private Vacancy save(String title, int hours, boolean visible, int cityId) {
+        return repository.save(new Vacancy(0, title, "description", BASE.plusHours(hours), visible, cityId, 7));
+    }
+
+    @Test
+    public void whenFilterByCityThenPagesFollowIndexFromCursor() {
+        var first = save("first", 0, true, 2);
+        save("hidden", 1, false, 2);
+        var second = save("second", 2, true, 2);
+        save("other city", 3, true, 1);
+        var filter = new VacancyFilter(2, true, null, null, VacancyFilter.Sort.OLDEST);
+
+        var page = repository.findSummariesAfter(filter, null, 2);
+        var next = repository.findSummariesAfter(filter, new Cursor(second.getCreationDate(), second.getId()), 2);
+        var previous = repository.findSummariesBefore(filter, new Cursor(next.get(0).creationDate(), next.get(0).id()), 1);
+
+        assertThat(page).extracting(VacancySummary::title).containsExactly("first", "second");
+        assertThat(page.get(0).cityName()).isEqualTo("Санкт-Петербург");
+        assertThat(next).extracting(VacancySummary::title).containsExactly("Middle Java Developer");
+        assertThat(previous).extracting(VacancySummary::id).containsExactly(second.getId());
+        assertThat(repository.findSummariesAfter(new VacancyFilter(2, true, LocalDate.of(2020, 1, 1),
+                LocalDate.of(2020, 1, 1), null), null, 10)).extracting(VacancySummary::id)
+                .containsExactly(second.getId(), first.getId());
+    }
+
+    @Test
+    public void whenUpdateThenMovedBetweenIndexesAndCreationDateTakenFromVacancy() {
+        var vacancy = save("title", 0, true, 2);
+        var creationDate = BASE.plusDays(3);
+
+        var isUpdated = repository.update(new Vacancy(vacancy.getId(), "changed", "changed", creationDate, false, 3, 7));
+
+        var byOldCity = repository.findSummariesAfter(new VacancyFilter(2, null, null, null, null), null, 10);
+        var hidden = repository.findSummariesAfter(new VacancyFilter(3, false, null, null, null), null, 10);
+        var onNewDate = repository.findSummariesAfter(new VacancyFilter(null, null, creationDate.toLocalDate(),
+                creationDate.toLocalDate(), null), null, 10);
+        assertThat(isUpdated).isTrue();
+        assertThat(byOldCity).extracting(VacancySummary::id).doesNotContain(vacancy.getId());
+        assertThat(hidden).extracting(VacancySummary::title).containsExactly("changed");
+        assertThat(onNewDate).extracting(VacancySummary::id).containsExactly(vacancy.getId());
+        assertThat(repository.findById(vacancy.getId()).get().getCreationDate()).isEqualTo(creationDate);
+        assertThat(repository.update(new Vacancy(0, "missing", "", true, 1, 0))).isFalse();
+    }
+
+    @Test
+    public void whenDeleteThenFileIdReturnedAndVacancyGoneFromIndexes() {
+        var vacancy = save("title", 0, true, 2);
+
+        assertThat(repository.deleteReturningFileId(vacancy.getId())).contains(7);
+        assertThat(repository.deleteReturningFileId(vacancy.getId())).isEmpty();
+        assertThat(repository.findSummariesAfter(VacancyFilter.NONE, null, 100)).hasSize(SEEDED);
+        assertThat(repository.search("title", 0, 10)).isEmpty();
+    }
+
+    @Test
+    public void whenReturnedVacancyChangedThenStoredVacancyUnchanged() {
+        var vacancy = save("title", 0, true, 2);
+
+        repository.findById(vacancy.getId()).get().setCreationDate(BASE.plusYears(10));
+        vacancy.setTitle("changed by caller");
+
+        assertThat(repository.findById(vacancy.getId()).get().getTitle()).isEqualTo("title");
+        assertThat(repository.findAll()).isUnmodifiable().last().extracting(Vacancy::getId).isEqualTo(vacancy.getId());
+    }
+
+    @Test
+    public void whenUpdatedConcurrentlyThenReadersSeeEveryVacancyOnce() {
+        var ids = new ArrayList<Integer>();
+        for (var i = 0; i < 50; i++) {
+            ids.add(save("vacancy " + i, i, true, 1 + i % 3).getId());
+        }
+        var total = ids.size() + SEEDED;
+        var stop = new AtomicBoolean();
+        var writer = CompletableFuture.runAsync(() -> {
+            for (var i = 0; !stop.get(); i++) {
+                var id = ids.get(i % ids.size());
+                repository.update(new Vacancy(id, "vacancy " + i, "description", i % 2 == 0, 1 + i % 3, 7));
+            }
+        });
+        try {
+            for (var i = 0; i < 2000; i++) {
+                assertThat(repository.findAll()).hasSize(total);
+                assertThat(repository.findSummariesAfter(VacancyFilter.NONE, null, total + 1)).hasSize(total);
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+
+    @Test
+    public void whenUpdatedConcurrentlyThenSearchReturnsOnlyRowsWithMatchingText() {
+        var ids = new ArrayList<Integer>();
+        for (var i = 0; i < 20; i++) {
+            ids.add(save("alpha", i, true, 1).getId());
+        }
+        var stop = new AtomicBoolean();
+        var writer = CompletableFuture.runAsync(() -> {
+            for (var i = 0; !stop.get(); i++) {
+                var id = ids.get(i % ids.size());
+                var title = i / ids.size() % 2 == 0 ? "beta" : "alpha";
+                repository.update(new Vacancy(id, title, "description", BASE, true, 1, 7));
+            }
+        });
+        try {
+            for (var i = 0; i < 2000; i++) {
+                assertThat(repository.search("alpha", 0, 100)).allMatch(summary -> "alpha".equals(summary.title()));
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+}
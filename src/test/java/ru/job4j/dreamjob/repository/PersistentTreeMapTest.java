@@ -0,0 +1,70 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PersistentTreeMapTest {
+
+    private static <V> List<V> toList(Iterator<V> iterator) {
+        var result = new ArrayList<V>();
+        iterator.forEachRemaining(result::add);
+        return result;
+    }
+
+    @Test
+    public void whenChangedThenPreviousVersionUnchanged() {
+        var first = PersistentTreeMap.<Integer, String>empty(Comparator.naturalOrder()).put(1, "one").put(2, "two");
+
+        var second = first.put(2, "двa").remove(1).put(3, "three");
+
+        assertThat(toList(first.ascending(null, true))).containsExactly("one", "two");
+        assertThat(first.size()).isEqualTo(2);
+        assertThat(toList(second.ascending(null, true))).containsExactly("двa", "three");
+        assertThat(second.size()).isEqualTo(2);
+        assertThat(second.get(1)).isNull();
+    }
+
+    @Test
+    public void whenIteratedFromKeyThenBoundRespectedInBothDirections() {
+        var map = PersistentTreeMap.<Integer, Integer>empty(Comparator.naturalOrder());
+        for (var key : List.of(50, 10, 40, 20, 30)) {
+            map = map.put(key, key);
+        }
+
+        assertThat(toList(map.ascending(20, true))).containsExactly(20, 30, 40, 50);
+        assertThat(toList(map.ascending(20, false))).containsExactly(30, 40, 50);
+        assertThat(toList(map.ascending(25, false))).containsExactly(30, 40, 50);
+        assertThat(toList(map.descending(40, false))).containsExactly(30, 20, 10);
+        assertThat(toList(map.descending(null, true))).containsExactly(50, 40, 30, 20, 10);
+        assertThat(toList(map.descending(5, true))).isEmpty();
+    }
+
+    @Test
+    public void whenRandomChangesThenSameAsTreeMap() {
+        var random = new Random(42);
+        var expected = new TreeMap<Integer, Integer>();
+        var map = PersistentTreeMap.<Integer, Integer>empty(Comparator.naturalOrder());
+        for (var i = 0; i < 5000; i++) {
+            var key = random.nextInt(500);
+            if (random.nextBoolean()) {
+                expected.put(key, i);
+                map = map.put(key, i);
+            } else {
+                expected.remove(key);
+                map = map.remove(key);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        assertThat(toList(map.ascending(null, true))).isEqualTo(List.copyOf(expected.values()));
+        assertThat(toList(map.descending(250, true))).isEqualTo(List.copyOf(expected.headMap(250, true).descendingMap().values()));
+    }
+}
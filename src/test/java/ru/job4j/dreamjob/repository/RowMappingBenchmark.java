@@ -0,0 +1,106 @@
+package ru.job4j.dreamjob.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.InstrumentedDataSource;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение большого списка вакансий: отражение Sql2o по карте колонок, как было раньше, против {@link RowMappers}.
+ * База - H2 в памяти, чтобы разница в отображении не терялась на сети.
+ * Запуск: mvn -Pbenchmark test-compile exec:exec, аллокации - в строках gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+    private static final int ROWS = 10_000;
+
+    private static final String SELECT_ALL = "SELECT * FROM vacancies";
+
+    private static final Map<String, String> COLUMN_MAPPING = Map.of(
+            "id", "id",
+            "title", "title",
+            "description", "description",
+            "creation_date", "creationDate",
+            "visible", "visible",
+            "city_id", "cityId",
+            "file_id", "fileId"
+    );
+
+    private InstrumentedDataSource dataSource;
+
+    private Sql2o sql2o;
+
+    @Setup
+    public void createVacancies() {
+        var configuration = new DatasourceConfiguration();
+        dataSource = configuration.connectionPool("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "", "");
+        sql2o = configuration.databaseClient(dataSource);
+        try (var connection = sql2o.beginTransaction()) {
+            connection.createQuery(String.join(" ",
+                    "CREATE TABLE vacancies (id SERIAL PRIMARY KEY, title VARCHAR NOT NULL, description TEXT,",
+                    "creation_date TIMESTAMP NOT NULL, visible BOOLEAN NOT NULL, city_id INT NOT NULL, file_id INT)"))
+                    .executeUpdate();
+            var insert = connection.createQuery(String.join(" ",
+                    "INSERT INTO vacancies (title, description, creation_date, visible, city_id, file_id)",
+                    "VALUES (:title, :description, :creationDate, :visible, :cityId, :fileId)"));
+            var now = LocalDateTime.now();
+            for (var i = 0; i < ROWS; i++) {
+                insert.addParameter("title", "Java Developer " + i)
+                        .addParameter("description", "Описание вакансии номер " + i)
+                        .addParameter("creationDate", now.minusMinutes(i))
+                        .addParameter("visible", i % 2 == 0)
+                        .addParameter("cityId", i % 3 + 1)
+                        .addParameter("fileId", i % 5 == 0 ? null : i)
+                        .addToBatch();
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+    }
+
+    @TearDown
+    public void dropVacancies() throws SQLException {
+        try (var connection = sql2o.open()) {
+            connection.createQuery("DROP TABLE vacancies").executeUpdate();
+        }
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<Vacancy> reflection() {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery(SELECT_ALL)
+                    .setColumnMappings(COLUMN_MAPPING)
+                    .executeAndFetch(Vacancy.class);
+        }
+    }
+
+    @Benchmark
+    public List<Vacancy> rowMapper() {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery(SELECT_ALL).executeAndFetch(RowMappers.VACANCY);
+        }
+    }
+}
@@ -5,10 +5,13 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.dto.Cursor;
 import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.CandidateSummary;
 import ru.job4j.dreamjob.model.File;
 
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
@@ -38,7 +41,7 @@ class Sql2oCandidateRepositoryTest {
         var datasource = configuration.connectionPool(url, username, password);
         var sql2o = configuration.databaseClient(datasource);
 
-        sql2oCandidateRepository = new Sql2oCandidateRepository(sql2o);
+        sql2oCandidateRepository = new Sql2oCandidateRepository(sql2o, "index");
         sql2oFileRepository = new Sql2oFileRepository(sql2o);
 
         file = new File("test", "test");
@@ -76,6 +79,19 @@ class Sql2oCandidateRepositoryTest {
         assertThat(result).isEqualTo(List.of(candidate1, candidate2, candidate3));
     }
 
+    @Test
+    public void whenForEachThenAllVisitedInIdOrder() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var first = sql2oCandidateRepository.save(new Candidate(0, "first", "description", creationDate, file.getId()));
+        var second = sql2oCandidateRepository.save(new Candidate(0, "second", "description", creationDate, file.getId()));
+        var visited = new ArrayList<Candidate>();
+
+        sql2oCandidateRepository.forEach(visited::add);
+
+        assertThat(visited).isEqualTo(List.of(first, second));
+        assertThat(visited.get(1)).usingRecursiveComparison().isEqualTo(second);
+    }
+
     @Test
     public void whenDontSaveThenNothingFound() {
         assertThat(sql2oCandidateRepository.findAll()).isEqualTo(emptyList());
@@ -97,6 +113,15 @@ class Sql2oCandidateRepositoryTest {
         assertThat(sql2oCandidateRepository.deleteById(0)).isFalse();
     }
 
+    @Test
+    public void whenDeleteReturningFileIdThenGetFileIdOfDeletedCandidate() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var candidate = sql2oCandidateRepository.save(new Candidate(0, "title", "description", creationDate, file.getId()));
+
+        assertThat(sql2oCandidateRepository.deleteReturningFileId(candidate.getId())).contains(file.getId());
+        assertThat(sql2oCandidateRepository.deleteReturningFileId(candidate.getId())).isEmpty();
+    }
+
     @Test
     public void whenUpdateThenGetUpdated() {
         var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
@@ -116,4 +141,45 @@ class Sql2oCandidateRepositoryTest {
         var isUpdated = sql2oCandidateRepository.update(candidate);
         assertThat(isUpdated).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void whenPageThroughThenEachOnceNewestFirst() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var oldest = sql2oCandidateRepository.save(new Candidate(0, "oldest", "description", creationDate.minusDays(1), file.getId()));
+        var first = sql2oCandidateRepository.save(new Candidate(0, "first", "description", creationDate, file.getId()));
+        var second = sql2oCandidateRepository.save(new Candidate(0, "second", "description", creationDate, file.getId()));
+        var newest = sql2oCandidateRepository.save(new Candidate(0, "newest", "description", creationDate.plusDays(1), file.getId()));
+
+        var firstPage = sql2oCandidateRepository.findSummariesAfter(null, 3);
+        var last = firstPage.get(2);
+        var secondPage = sql2oCandidateRepository.findSummariesAfter(new Cursor(last.creationDate(), last.id()), 3);
+
+        assertThat(firstPage).containsExactly(CandidateSummary.of(newest), CandidateSummary.of(second), CandidateSummary.of(first));
+        assertThat(secondPage).containsExactly(CandidateSummary.of(oldest));
+    }
+
+    @Test
+    public void whenPageBackThenRowsRightBeforeCursorInListOrder() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var oldest = sql2oCandidateRepository.save(new Candidate(0, "oldest", "description", creationDate.minusDays(1), file.getId()));
+        var first = sql2oCandidateRepository.save(new Candidate(0, "first", "description", creationDate, file.getId()));
+        var second = sql2oCandidateRepository.save(new Candidate(0, "second", "description", creationDate, file.getId()));
+        sql2oCandidateRepository.save(new Candidate(0, "newest", "description", creationDate.plusDays(1), file.getId()));
+
+        var page = sql2oCandidateRepository.findSummariesBefore(new Cursor(oldest.getCreationDate(), oldest.getId()), 2);
+
+        assertThat(page).containsExactly(CandidateSummary.of(second), CandidateSummary.of(first));
+    }
+
+    @Test
+    public void whenSearchThenMatchesKeptUpToDateWithWrites() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var java = sql2oCandidateRepository.save(new Candidate(0, "Ivan", "Java, Spring", creationDate, file.getId()));
+        sql2oCandidateRepository.save(new Candidate(0, "Oleg", "Python", creationDate, file.getId()));
+        assertThat(sql2oCandidateRepository.search("spring java", 0, 10)).containsExactly(CandidateSummary.of(java));
+
+        sql2oCandidateRepository.deleteById(java.getId());
+
+        assertThat(sql2oCandidateRepository.search("java", 0, 10)).isEmpty();
+    }
+}
@@ -0,0 +1,121 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.model.File;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static java.util.Optional.empty;
+import static org.assertj.core.api.Assertions.*;
+
+class Sql2oFileRepositoryTest {
+    private static Sql2oFileRepository sql2oFileRepository;
+
+    private static Sql2o sql2o;
+
+    @BeforeAll
+    public static void initRepositories() throws Exception {
+        var properties = new Properties();
+        try (var inputStream = Sql2oFileRepositoryTest.class.getClassLoader().getResourceAsStream("connection.properties")) {
+            properties.load(inputStream);
+        }
+        var url = properties.getProperty("datasource.url");
+        var username = properties.getProperty("datasource.username");
+        var password = properties.getProperty("datasource.password");
+
+        var configuration = new DatasourceConfiguration();
+        var datasource = configuration.connectionPool(url, username, password);
+        sql2o = configuration.databaseClient(datasource);
+
+        sql2oFileRepository = new Sql2oFileRepository(sql2o);
+    }
+
+    @AfterEach
+    public void clearFiles() {
+        try (var connection = sql2o.open()) {
+            connection.createQuery("DELETE FROM files WHERE path LIKE 'repository-test%'").executeUpdate();
+        }
+    }
+
+    private File createFile(String path, String checksum) {
+        var file = new File("name.png", path);
+        file.setSize(3);
+        file.setChecksum(checksum);
+        file.setContentType("image/png");
+        file.setWidth(640);
+        file.setHeight(480);
+        file.setCreationDate(LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES));
+        return file;
+    }
+
+    @Test
+    public void whenSaveThenFindByIdAndChecksum() {
+        var file = sql2oFileRepository.save(createFile("repository-test-1", "checksum-1"));
+
+        var byId = sql2oFileRepository.findById(file.getId()).get();
+        var byChecksum = sql2oFileRepository.findByChecksum("checksum-1").get();
+
+        assertThat(byId).usingRecursiveComparison().isEqualTo(file);
+        assertThat(byChecksum).usingRecursiveComparison().isEqualTo(file);
+        assertThat(sql2oFileRepository.findByChecksum("unknown")).isEqualTo(empty());
+    }
+
+    @Test
+    public void whenLastReferenceRemovedThenFileDeleted() {
+        var file = sql2oFileRepository.save(createFile("repository-test-2", "checksum-2"));
+
+        assertThat(sql2oFileRepository.addReference(file.getId())).isTrue();
+        assertThat(sql2oFileRepository.removeReference(file.getId())).isFalse();
+        assertThat(sql2oFileRepository.findById(file.getId())).isNotEmpty();
+        assertThat(sql2oFileRepository.removeReference(file.getId())).isTrue();
+        assertThat(sql2oFileRepository.findById(file.getId())).isEqualTo(empty());
+    }
+
+    @Test
+    public void whenReferenceUnknownFileThenGetFalse() {
+        assertThat(sql2oFileRepository.addReference(0)).isFalse();
+        assertThat(sql2oFileRepository.removeReference(0)).isFalse();
+    }
+
+    @Test
+    public void whenFindAfterIdThenGetNextPageInIdOrder() {
+        var first = sql2oFileRepository.save(createFile("repository-test-3", "checksum-3"));
+        var second = sql2oFileRepository.save(createFile("repository-test-4", "checksum-4"));
+        var third = sql2oFileRepository.save(createFile("repository-test-5", "checksum-5"));
+
+        var page = sql2oFileRepository.findAfterId(first.getId(), 2);
+
+        assertThat(page).extracting(File::getId).containsExactly(second.getId(), third.getId());
+    }
+
+    @Test
+    public void whenUpdatePathsThenOnlyExistingFilesUpdated() {
+        var file = sql2oFileRepository.save(createFile("repository-test-6", "checksum-6"));
+
+        var updated = sql2oFileRepository.updatePaths(Map.of(
+                file.getId(), "repository-test-6/ab/cd/moved",
+                0, "repository-test-unknown"));
+
+        assertThat(updated).containsExactly(file.getId());
+        assertThat(sql2oFileRepository.findById(file.getId()).get().getPath()).isEqualTo("repository-test-6/ab/cd/moved");
+    }
+
+    @Test
+    public void whenFindByIdsThenGetExistingFiles() {
+        var first = sql2oFileRepository.save(createFile("repository-test-7", "checksum-7"));
+        var second = sql2oFileRepository.save(createFile("repository-test-8", "checksum-8"));
+
+        var found = sql2oFileRepository.findByIds(List.of(first.getId(), second.getId(), 0));
+
+        assertThat(found).extracting(File::getId).containsExactlyInAnyOrder(first.getId(), second.getId());
+        assertThat(sql2oFileRepository.findByIds(List.of())).isEmpty();
+    }
+}
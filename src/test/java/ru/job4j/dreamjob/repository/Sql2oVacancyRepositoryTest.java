@@ -4,12 +4,18 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.sql2o.Sql2oException;
 import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.dto.Cursor;
+import ru.job4j.dreamjob.dto.VacancyFilter;
 import ru.job4j.dreamjob.model.File;
 import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.model.VacancySummary;
 
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import static java.time.LocalDateTime.now;
@@ -24,6 +30,10 @@ class Sql2oVacancyRepositoryTest {
 
     private static File file;
 
+    private static StatementCounter statementCounter;
+
+    private static Sql2oVacancyRepository countedVacancyRepository;
+
     @BeforeAll
     public static void initRepositories() throws Exception {
         var properties = new Properties();
@@ -38,13 +48,22 @@ class Sql2oVacancyRepositoryTest {
         var datasource = configuration.connectionPool(url, username, password);
         var sql2o = configuration.databaseClient(datasource);
 
-        sql2oVacancyRepository = new Sql2oVacancyRepository(sql2o);
+        sql2oVacancyRepository = new Sql2oVacancyRepository(sql2o, "index");
         sql2oFileRepository = new Sql2oFileRepository(sql2o);
 
+        statementCounter = new StatementCounter(datasource);
+        countedVacancyRepository = new Sql2oVacancyRepository(configuration.databaseClient(statementCounter.dataSource()), "index");
+
         file = new File("test", "test");
         sql2oFileRepository.save(file);
     }
 
+    /* города из начальных данных миграций */
+    private static VacancySummary summaryOf(Vacancy vacancy) {
+        var cityNames = Map.of(1, "Москва", 2, "Санкт-Петербург", 3, "Екатеринбург");
+        return VacancySummary.of(vacancy, cityNames.get(vacancy.getCityId()));
+    }
+
     @AfterAll
     public static void deleteFile() {
         sql2oFileRepository.deleteById(file.getId());
@@ -76,6 +95,44 @@ class Sql2oVacancyRepositoryTest {
         assertThat(result).isEqualTo(List.of(vacancy1, vacancy2, vacancy3));
     }
 
+    @Test
+    public void whenSaveAllThenIdsAssignedAndAllFound() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var vacancies = sql2oVacancyRepository.saveAll(List.of(
+                new Vacancy(0, "title1", "description1", creationDate, true, 1, 0),
+                new Vacancy(0, "title2", "description2", creationDate, false, 2, file.getId())));
+
+        assertThat(vacancies).allMatch(vacancy -> vacancy.getId() > 0);
+        assertThat(sql2oVacancyRepository.findAll()).isEqualTo(vacancies);
+        assertThat(sql2oVacancyRepository.findById(vacancies.get(0).getId()).get())
+                .usingRecursiveComparison().isEqualTo(vacancies.get(0));
+        assertThat(sql2oVacancyRepository.search("title2", 0, 10)).extracting(VacancySummary::id)
+                .containsExactly(vacancies.get(1).getId());
+    }
+
+    @Test
+    public void whenSaveAllFailsThenNothingSaved() {
+        var vacancies = List.of(
+                new Vacancy(0, "title1", "description1", true, 1, 0),
+                new Vacancy(0, "title2", "description2", true, -1, 0));
+
+        assertThatThrownBy(() -> sql2oVacancyRepository.saveAll(vacancies)).isInstanceOf(Sql2oException.class);
+        assertThat(sql2oVacancyRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    public void whenForEachThenAllVisitedInIdOrder() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var first = sql2oVacancyRepository.save(new Vacancy(0, "first", "description", creationDate, true, 1, file.getId()));
+        var second = sql2oVacancyRepository.save(new Vacancy(0, "second", "description", creationDate, true, 1, file.getId()));
+        var visited = new ArrayList<Vacancy>();
+
+        sql2oVacancyRepository.forEach(visited::add);
+
+        assertThat(visited).isEqualTo(List.of(first, second));
+        assertThat(visited.get(1)).usingRecursiveComparison().isEqualTo(second);
+    }
+
     @Test
     public void whenDontSaveThenNothingFound() {
         assertThat(sql2oVacancyRepository.findAll()).isEqualTo(emptyList());
@@ -97,6 +154,18 @@ class Sql2oVacancyRepositoryTest {
         assertThat(sql2oVacancyRepository.deleteById(0)).isFalse();
     }
 
+    @Test
+    public void whenDeleteReturningFileIdThenGetFileIdOfDeletedVacancy() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var withFile = sql2oVacancyRepository.save(new Vacancy(0, "title", "description", creationDate, true, 1, file.getId()));
+        var withoutFile = sql2oVacancyRepository.save(new Vacancy(0, "title", "description", creationDate, true, 1, 0));
+
+        assertThat(sql2oVacancyRepository.deleteReturningFileId(withFile.getId())).contains(file.getId());
+        assertThat(sql2oVacancyRepository.deleteReturningFileId(withoutFile.getId())).contains(0);
+        assertThat(sql2oVacancyRepository.deleteReturningFileId(withFile.getId())).isEmpty();
+        assertThat(sql2oVacancyRepository.findById(withFile.getId())).isEmpty();
+    }
+
     @Test
     public void whenUpdateThenGetUpdated() {
         var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
@@ -118,4 +187,116 @@ class Sql2oVacancyRepositoryTest {
         var isUpdated = sql2oVacancyRepository.update(vacancy);
         assertThat(isUpdated).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void whenPageThroughThenEachOnceNewestFirst() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var oldest = sql2oVacancyRepository.save(new Vacancy(0, "oldest", "description", creationDate.minusDays(1), true, 1, file.getId()));
+        var first = sql2oVacancyRepository.save(new Vacancy(0, "first", "description", creationDate, true, 1, file.getId()));
+        var second = sql2oVacancyRepository.save(new Vacancy(0, "second", "description", creationDate, true, 1, file.getId()));
+        var newest = sql2oVacancyRepository.save(new Vacancy(0, "newest", "description", creationDate.plusDays(1), true, 1, file.getId()));
+
+        var firstPage = sql2oVacancyRepository.findSummariesAfter(VacancyFilter.NONE, null, 3);
+        var last = firstPage.get(2);
+        var secondPage = sql2oVacancyRepository.findSummariesAfter(VacancyFilter.NONE, new Cursor(last.creationDate(), last.id()), 3);
+
+        assertThat(firstPage).containsExactly(summaryOf(newest), summaryOf(second), summaryOf(first));
+        assertThat(secondPage).containsExactly(summaryOf(oldest));
+    }
+
+    @Test
+    public void whenPageBackThenRowsRightBeforeCursorInListOrder() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var oldest = sql2oVacancyRepository.save(new Vacancy(0, "oldest", "description", creationDate.minusDays(1), true, 1, file.getId()));
+        var first = sql2oVacancyRepository.save(new Vacancy(0, "first", "description", creationDate, true, 1, file.getId()));
+        var second = sql2oVacancyRepository.save(new Vacancy(0, "second", "description", creationDate, true, 1, file.getId()));
+        sql2oVacancyRepository.save(new Vacancy(0, "newest", "description", creationDate.plusDays(1), true, 1, file.getId()));
+
+        var page = sql2oVacancyRepository.findSummariesBefore(VacancyFilter.NONE, new Cursor(oldest.getCreationDate(), oldest.getId()), 2);
+
+        assertThat(page).containsExactly(summaryOf(second), summaryOf(first));
+    }
+
+    @Test
+    public void whenFilterByCityVisibilityAndDatesThenOnlyMatchingInRequestedOrder() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var old = sql2oVacancyRepository.save(new Vacancy(0, "old", "description", creationDate.minusDays(10), true, 1, file.getId()));
+        var matching = sql2oVacancyRepository.save(new Vacancy(0, "matching", "description", creationDate.minusDays(1), true, 1, file.getId()));
+        var latest = sql2oVacancyRepository.save(new Vacancy(0, "latest", "description", creationDate, true, 1, file.getId()));
+        sql2oVacancyRepository.save(new Vacancy(0, "hidden", "description", creationDate, false, 1, file.getId()));
+        sql2oVacancyRepository.save(new Vacancy(0, "other city", "description", creationDate, true, 2, file.getId()));
+        var filter = new VacancyFilter(1, true, creationDate.minusDays(5).toLocalDate(), creationDate.toLocalDate(),
+                VacancyFilter.Sort.OLDEST);
+
+        var page = sql2oVacancyRepository.findSummariesAfter(filter, null, 10);
+        var all = sql2oVacancyRepository.findSummariesAfter(new VacancyFilter(1, true, null, null, null), null, 10);
+
+        assertThat(page).containsExactly(summaryOf(matching), summaryOf(latest));
+        assertThat(all).containsExactly(summaryOf(latest), summaryOf(matching), summaryOf(old));
+    }
+
+    @Test
+    public void whenFilterByCityThenPlanUsesCityIndex() {
+        var filter = new VacancyFilter(1, true, null, null, VacancyFilter.Sort.OLDEST);
+
+        var plan = sql2oVacancyRepository.explainSummaries(filter, new Cursor(now(), 1), 20);
+
+        assertThat(plan).containsIgnoringCase("vacancies_city_id_creation_date_idx");
+    }
+
+    @Test
+    public void whenFilterByVisibilityThenPlanUsesVisibilityIndex() {
+        var filter = new VacancyFilter(null, false, null, null, null);
+
+        var plan = sql2oVacancyRepository.explainSummaries(filter, null, 20);
+
+        assertThat(plan).containsIgnoringCase("vacancies_visible_creation_date_idx");
+    }
+
+    @Test
+    public void whenFilterByDatesOnlyThenPlanUsesCreationDateIndex() {
+        var filter = new VacancyFilter(null, null, now().toLocalDate().minusDays(7), now().toLocalDate(), null);
+
+        var plan = sql2oVacancyRepository.explainSummaries(filter, null, 20);
+
+        assertThat(plan).containsIgnoringCase("vacancies_creation_date_id_idx");
+    }
+
+    @Test
+    public void whenNextPageWithoutFilterThenPlanUsesCreationDateIndex() {
+        var plan = sql2oVacancyRepository.explainSummaries(VacancyFilter.NONE, new Cursor(now(), 1), 20);
+
+        assertThat(plan).containsIgnoringCase("vacancies_creation_date_id_idx");
+    }
+
+    @Test
+    public void whenFindPageThenOneStatementReturnsCityNames() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        sql2oVacancyRepository.save(new Vacancy(0, "Moscow", "description", creationDate, true, 1, file.getId()));
+        sql2oVacancyRepository.save(new Vacancy(0, "Ekaterinburg", "description", creationDate.plusMinutes(1), true, 3, file.getId()));
+        statementCounter.reset();
+
+        var page = countedVacancyRepository.findSummariesAfter(VacancyFilter.NONE, null, 20);
+
+        assertThat(statementCounter.count()).isEqualTo(1);
+        assertThat(page).extracting(VacancySummary::cityName).containsExactly("Екатеринбург", "Москва");
+    }
+
+    @Test
+    public void whenSearchThenRankedMatchesKeptUpToDateWithWrites() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var inTitle = sql2oVacancyRepository.save(new Vacancy(0, "Java developer", "Spring", creationDate, true, 1, file.getId()));
+        var inDescription = sql2oVacancyRepository.save(new Vacancy(0, "Developer", "Some Java", creationDate, true, 1, file.getId()));
+        assertThat(sql2oVacancyRepository.search("java developer", 0, 10))
+                .containsExactly(summaryOf(inTitle), summaryOf(inDescription));
+
+        var added = sql2oVacancyRepository.save(new Vacancy(0, "Kotlin developer", "", creationDate, true, 1, file.getId()));
+        inTitle.setTitle("Go developer");
+        sql2oVacancyRepository.update(inTitle);
+        sql2oVacancyRepository.deleteById(inDescription.getId());
+
+        assertThat(sql2oVacancyRepository.search("java", 0, 10)).isEmpty();
+        assertThat(sql2oVacancyRepository.search("developer", 0, 10))
+                .containsExactly(summaryOf(added), summaryOf(inTitle));
+    }
+}
@@ -0,0 +1,62 @@
+package ru.job4j.dreamjob.repository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Источник соединений, который считает подготовленные на них запросы:
+ * так тест проверяет, сколько обращений к базе стоит операция.
+ */
+public class StatementCounter {
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall", "createStatement");
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final DataSource dataSource;
+
+    public StatementCounter(DataSource target) {
+        this.dataSource = proxy(DataSource.class, target, (result, method) -> method.equals("getConnection")
+                ? proxy(Connection.class, (Connection) result, (ignored, name) -> countStatement(name)) : null);
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public int count() {
+        return count.get();
+    }
+
+    public void reset() {
+        count.set(0);
+    }
+
+    private Object countStatement(String method) {
+        if (STATEMENT_METHODS.contains(method)) {
+            count.incrementAndGet();
+        }
+        return null;
+    }
+
+    /* after возвращает замену результата вызова или null, чтобы оставить результат как есть */
+    private static <T> T proxy(Class<T> type, T target, After after) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            var replacement = after.apply(result, method.getName());
+            return replacement != null ? replacement : result;
+        }));
+    }
+
+    private interface After {
+        Object apply(Object result, String method);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.job4j.dreamjob.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LoadingSearchIndexTest {
+
+    @Test
+    void whenWrittenDuringLoadThenWritesNotBlockedAndAppliedAfterLoad() throws InterruptedException {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var index = new LoadingSearchIndex("test-search-index", loaded -> {
+            started.countDown();
+            awaitQuietly(release);
+            loaded.put(1, "старый заголовок");
+            loaded.put(2, "удалённый заголовок");
+        });
+        var loading = index.load();
+        started.await();
+
+        index.put(1, "новый заголовок");
+        index.remove(2);
+        index.put(3, "добавленный заголовок");
+        assertThat(index.isLoaded()).isFalse();
+        release.countDown();
+        loading.join();
+
+        assertThat(index.isLoaded()).isTrue();
+        assertThat(index.search("заголовок", 0, 10)).containsExactlyInAnyOrder(1, 3);
+        assertThat(index.search("старый", 0, 10)).isEmpty();
+        assertThat(index.search("новый", 0, 10)).containsExactly(1);
+    }
+
+    @Test
+    void whenLoadFailsThenNextLoadStartsOver() {
+        var attempts = new AtomicInteger();
+        var index = new LoadingSearchIndex("test-search-index", loaded -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("database is down");
+            }
+            loaded.put(1, "заголовок");
+        });
+
+        assertThatThrownBy(() -> index.load().join()).isInstanceOf(CompletionException.class);
+        assertThat(index.search("заголовок", 0, 10)).containsExactly(1);
+        assertThat(attempts).hasValue(2);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.job4j.dreamjob.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SearchIndexTest {
+    @Test
+    public void whenAllWordsMatchThenFoundAndTitleMatchRankedFirst() {
+        var index = new SearchIndex();
+        index.put(1, "Java разработчик", "Пишем на Spring");
+        index.put(2, "Тестировщик", "Автотесты на Java, немного разработчик");
+        index.put(3, "Java", "Только Java");
+
+        assertThat(index.search("java РАЗРАБОТЧИК", 0, 10)).containsExactly(1, 2);
+        assertThat(index.search("java", 1, 1)).containsExactly(1);
+    }
+
+    @Test
+    public void whenDocumentReplacedOrRemovedThenOldWordsNotFound() {
+        var index = new SearchIndex();
+        index.put(1, "Java разработчик", "");
+        index.put(2, "Ёлочный дизайнер", "");
+
+        index.put(1, "Kotlin разработчик", "");
+        index.remove(2);
+
+        assertThat(index.search("java", 0, 10)).isEmpty();
+        assertThat(index.search("kotlin", 0, 10)).containsExactly(1);
+        assertThat(index.search("елочный", 0, 10)).isEmpty();
+        assertThat(index.search(" ,. ", 0, 10)).isEmpty();
+    }
+
+    @Test
+    public void whenWordFormDiffersThenStillFound() {
+        var index = new SearchIndex();
+        index.put(1, "Ведущий разработчик", "Разрабатываем сервисы");
+        index.put(2, "Senior developers", "Testing");
+
+        assertThat(index.search("разработчики", 0, 10)).containsExactly(1);
+        assertThat(index.search("developer tests", 0, 10)).containsExactly(2);
+    }
+
+    @Test
+    public void whenPhraseOrAndNotThenWebSearchSemantics() {
+        var index = new SearchIndex();
+        index.put(1, "Java разработчик", "");
+        index.put(2, "Разработчик", "Java, Kotlin");
+        index.put(3, "Тестировщик", "Python");
+        index.put(4, "Java", "Ведущий");
+
+        assertThat(index.search("\"java разработчик\"", 0, 10)).containsExactly(1);
+        assertThat(index.search("разработчик -kotlin", 0, 10)).containsExactly(1);
+        assertThat(index.search("python or kotlin", 0, 10)).containsExactly(3, 2);
+        assertThat(index.search("-java", 0, 10)).isEmpty();
+    }
+
+    @Test
+    public void whenPhraseSpansFieldsThenNotFound() {
+        var index = new SearchIndex();
+        index.put(1, "Старший Java", "разработчик");
+
+        assertThat(index.search("\"java разработчик\"", 0, 10)).isEmpty();
+        assertThat(index.search("java разработчик", 0, 10)).containsExactly(1);
+    }
+
+    @Test
+    public void whenManyWritesThenSegmentsMergedAndOnlyLatestVersionsFound() {
+        var index = new SearchIndex();
+        for (var id = 1; id <= 1000; id++) {
+            index.put(id, "vacancy" + id % 10, "common");
+        }
+        for (var id = 1; id <= 1000; id += 2) {
+            index.put(id, "updated", "common");
+        }
+        for (var id = 2; id <= 1000; id += 4) {
+            index.remove(id);
+        }
+
+        assertThat(index.search("common", 0, 2000)).hasSize(750);
+        assertThat(index.search("updated", 0, 2000)).hasSize(500);
+        assertThat(index.search("vacancy4", 0, 2000)).hasSize(50).doesNotContain(14, 34, 54);
+        assertThat(index.search("vacancy4", 0, 3)).containsExactly(984, 964, 944);
+    }
+
+    @Test
+    public void whenSearchingWhileWritingThenReadersSeeConsistentDocuments() throws InterruptedException {
+        var index = new SearchIndex();
+        for (var id = 1; id <= 100; id++) {
+            index.put(id, "stable", "");
+        }
+        var writer = new Thread(() -> {
+            for (var round = 0; round < 200; round++) {
+                for (var id = 1; id <= 100; id++) {
+                    index.put(id, "stable", "round" + round);
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            assertThat(index.search("stable", 0, 1000)).hasSize(100);
+        }
+        writer.join();
+        assertThat(index.search("round199", 0, 1000)).hasSize(100);
+    }
+}
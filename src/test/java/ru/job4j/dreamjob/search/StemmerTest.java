@@ -0,0 +1,34 @@
+package ru.job4j.dreamjob.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class StemmerTest {
+    @Test
+    public void whenRussianWordFormsThenSameStem() {
+        assertThat(Stemmer.stem("вакансия")).isEqualTo("ваканс");
+        assertThat(Stemmer.stem("вакансии")).isEqualTo("ваканс");
+        assertThat(Stemmer.stem("вакансиями")).isEqualTo("ваканс");
+        assertThat(Stemmer.stem("разработчиков")).isEqualTo("разработчик");
+        assertThat(Stemmer.stem("программирование")).isEqualTo(Stemmer.stem("программированию"));
+        assertThat(Stemmer.stem("опытный")).isEqualTo(Stemmer.stem("опытного"));
+        assertThat(Stemmer.stem("работающий")).isEqualTo(Stemmer.stem("работающая"));
+    }
+
+    @Test
+    public void whenEnglishWordFormsThenSameStem() {
+        assertThat(Stemmer.stem("developers")).isEqualTo("developer");
+        assertThat(Stemmer.stem("testing")).isEqualTo("test");
+        assertThat(Stemmer.stem("tested")).isEqualTo("test");
+        assertThat(Stemmer.stem("libraries")).isEqualTo(Stemmer.stem("library"));
+        assertThat(Stemmer.stem("running")).isEqualTo("run");
+    }
+
+    @Test
+    public void whenMixedOrShortWordThenUnchanged() {
+        assertThat(Stemmer.stem("java8")).isEqualTo("java8");
+        assertThat(Stemmer.stem("go")).isEqualTo("go");
+        assertThat(Stemmer.stem("сс")).isEqualTo("сс");
+    }
+}
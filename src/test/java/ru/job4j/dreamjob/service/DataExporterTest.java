@@ -0,0 +1,77 @@
+package ru.job4j.dreamjob.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.CandidateRepository;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DataExporterTest {
+    private final LocalDateTime creationDate = LocalDateTime.of(2024, 3, 1, 12, 30);
+
+    private VacancyRepository vacancyRepository;
+
+    private CandidateRepository candidateRepository;
+
+    private DataExporter dataExporter;
+
+    @BeforeEach
+    public void initExporter() {
+        vacancyRepository = mock(VacancyRepository.class);
+        candidateRepository = mock(CandidateRepository.class);
+        dataExporter = new DataExporter(vacancyRepository, candidateRepository, new ObjectMapper());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void whenExportVacanciesThenCsvReadableBack() throws IOException {
+        doAnswer(invocation -> {
+            Consumer<Vacancy> action = invocation.getArgument(0);
+            action.accept(new Vacancy(1, "Java", "Spring, \"Boot\"\nHibernate", creationDate, true, 2, 0));
+            action.accept(new Vacancy(2, "Go", "", creationDate, false, 1, 5));
+            return null;
+        }).when(vacancyRepository).forEach(any(Consumer.class));
+        var output = new ByteArrayOutputStream();
+
+        dataExporter.exportVacancies(output);
+
+        var reader = new CsvReader(new InputStreamReader(new ByteArrayInputStream(output.toByteArray()), StandardCharsets.UTF_8));
+        assertThat(reader.next()).containsExactly("id", "title", "description", "creation_date", "visible", "city_id", "file_id");
+        assertThat(reader.next()).containsExactly("1", "Java", "Spring, \"Boot\"\nHibernate", "2024-03-01T12:30", "true", "2", "");
+        assertThat(reader.next()).containsExactly("2", "Go", "", "2024-03-01T12:30", "false", "1", "5");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void whenExportCandidatesThenObjectPerLine() throws IOException {
+        doAnswer(invocation -> {
+            Consumer<Candidate> action = invocation.getArgument(0);
+            action.accept(new Candidate(1, "Иван", "Java\nSpring", creationDate, 3));
+            action.accept(new Candidate(2, "Олег", "", creationDate, 0));
+            return null;
+        }).when(candidateRepository).forEach(any(Consumer.class));
+        var output = new ByteArrayOutputStream();
+
+        dataExporter.exportCandidates(output);
+
+        assertThat(output.toString(StandardCharsets.UTF_8).split("\n")).containsExactly(
+                "{\"id\":1,\"name\":\"Иван\",\"description\":\"Java\\nSpring\",\"creation_date\":\"2024-03-01T12:30\",\"file_id\":3}",
+                "{\"id\":2,\"name\":\"Олег\",\"description\":\"\",\"creation_date\":\"2024-03-01T12:30\"}");
+    }
+}
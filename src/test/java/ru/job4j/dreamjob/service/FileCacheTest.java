@@ -0,0 +1,49 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import ru.job4j.dreamjob.dto.FileResourceDto;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileCacheTest {
+
+    private FileResourceDto content(Resource resource, long size) {
+        return new FileResourceDto("file.png", MediaType.IMAGE_PNG, size, "abc", resource);
+    }
+
+    @Test
+    void whenEntryAdmittedThenContentServedFromMemory() throws Exception {
+        var fileCache = new FileCache(10, 10, "lru");
+        var resource = mock(Resource.class);
+        when(resource.getContentAsByteArray()).thenReturn(new byte[]{1, 2, 3});
+
+        var served = fileCache.put(1, 0, content(resource, 3));
+
+        assertThat(served.getResource().getContentAsByteArray()).containsExactly(1, 2, 3);
+        assertThat(fileCache.get(1, 0)).isPresent();
+    }
+
+    @Test
+    void whenPolicyRejectsEntryThenContentIsNotRead() throws Exception {
+        var fileCache = new FileCache(3, 3, "tinylfu");
+        var popular = mock(Resource.class);
+        when(popular.getContentAsByteArray()).thenReturn(new byte[]{1, 2, 3});
+        fileCache.put(1, 0, content(popular, 3));
+        for (int i = 0; i < 5; i++) {
+            fileCache.get(1, 0);
+        }
+        var rare = mock(Resource.class);
+
+        var served = fileCache.put(2, 0, content(rare, 3));
+
+        assertThat(served.getResource()).isSameAs(rare);
+        verify(rare, never()).getContentAsByteArray();
+        assertThat(fileCache.get(1, 0)).isPresent();
+    }
+}
@@ -0,0 +1,50 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FileCleanerTest {
+    @Test
+    public void whenDeleteLaterThenFilesDeletedInBatchesWithoutEmptyIds() throws InterruptedException {
+        var fileService = mock(FileService.class);
+        var deleted = new ArrayList<Integer>();
+        var batches = new ArrayList<Integer>();
+        doAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            synchronized (deleted) {
+                deleted.addAll(ids);
+                batches.add(ids.size());
+            }
+            return null;
+        }).when(fileService).deleteByIds(any());
+        var fileCleaner = new FileCleaner(fileService, 2);
+
+        for (var id : List.of(1, 0, 2, 3, 2, 0, 4)) {
+            fileCleaner.deleteLater(id);
+        }
+        fileCleaner.shutdown();
+
+        assertThat(deleted).containsExactly(1, 2, 3, 2, 4);
+        assertThat(batches).allMatch(size -> size <= 2);
+    }
+
+    @Test
+    public void whenBatchFailsThenLaterBatchesStillDeleted() throws InterruptedException {
+        var fileService = mock(FileService.class);
+        doThrow(new IllegalStateException("database is down")).doNothing().when(fileService).deleteByIds(any());
+        var fileCleaner = new FileCleaner(fileService, 1);
+
+        fileCleaner.deleteLater(1);
+        fileCleaner.deleteLater(2);
+        fileCleaner.shutdown();
+
+        verify(fileService).deleteByIds(List.of(2));
+    }
+}
@@ -0,0 +1,129 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.repository.MemoryFileRepository;
+import ru.job4j.dreamjob.storage.FileLayout;
+import ru.job4j.dreamjob.storage.LocalFileStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FileLayoutMigrationTest {
+    @TempDir
+    private Path directory;
+
+    private FileLayout fileLayout;
+
+    private ThumbnailGenerator thumbnailGenerator;
+
+    private FileCache fileCache;
+
+    @BeforeEach
+    void init() {
+        fileLayout = new FileLayout(directory.toString());
+        thumbnailGenerator = new ThumbnailGenerator(new LocalFileStorage(fileLayout), new int[]{64, 256}, 1, 1, 50_000_000);
+        fileCache = new FileCache(1024, 1024, "lru");
+    }
+
+    @AfterEach
+    void shutdown() {
+        thumbnailGenerator.shutdown();
+    }
+
+    /* файл, сохранённый до появления раскладки, - прямо в корне каталога */
+    private File saveLegacy(MemoryFileRepository fileRepository, String name) throws IOException {
+        var path = Files.writeString(directory.resolve(name), name);
+        return fileRepository.save(new File(name, path.toString()));
+    }
+
+    private FileLayoutMigration.Progress migrate(MemoryFileRepository fileRepository, int batchSize)
+            throws InterruptedException {
+        var migration = new FileLayoutMigration(fileRepository, fileLayout, thumbnailGenerator, fileCache,
+                false, batchSize, 0);
+        assertThat(migration.start()).isTrue();
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (migration.getProgress().running() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return migration.getProgress();
+    }
+
+    @Test
+    void whenBatchesMigratedThenPathsUpdatedAndOldCopiesRemoved() throws Exception {
+        var fileRepository = new MemoryFileRepository();
+        var files = new File[]{saveLegacy(fileRepository, "first"), saveLegacy(fileRepository, "second"),
+                saveLegacy(fileRepository, "third")};
+        var sharded = fileRepository.save(new File("sharded", fileLayout.resolve("sharded").toString()));
+
+        var progress = migrate(fileRepository, 2);
+
+        assertThat(progress).isEqualTo(new FileLayoutMigration.Progress(false, 4, 3, 0));
+        for (var file : files) {
+            var migrated = fileRepository.findById(file.getId()).orElseThrow();
+            assertThat(migrated.getPath()).isEqualTo(fileLayout.resolve(file.getName()).toString());
+            assertThat(Files.readString(Path.of(migrated.getPath()))).isEqualTo(file.getName());
+            assertThat(directory.resolve(file.getName())).doesNotExist();
+        }
+        assertThat(fileRepository.findById(sharded.getId()).orElseThrow().getPath())
+                .isEqualTo(fileLayout.resolve("sharded").toString());
+    }
+
+    @Test
+    void whenRecordDeletedDuringMigrationThenNoCopyLeftBehind() throws Exception {
+        var fileServiceHolder = new SimpleFileService[1];
+        var deleted = new int[1];
+        var fileRepository = new MemoryFileRepository() {
+            @Override
+            public Set<Integer> updatePaths(Map<Integer, String> paths) {
+                /* запись удаляется после того, как перенос уже создал ссылку по новому пути */
+                fileServiceHolder[0].deleteById(deleted[0]);
+                return super.updatePaths(paths);
+            }
+        };
+        var fileStorage = new LocalFileStorage(fileLayout);
+        fileServiceHolder[0] = new SimpleFileService(fileRepository, fileStorage, fileLayout, false,
+                thumbnailGenerator, fileCache);
+        var kept = saveLegacy(fileRepository, "kept");
+        var removed = saveLegacy(fileRepository, "removed");
+        deleted[0] = removed.getId();
+
+        var progress = migrate(fileRepository, 10);
+
+        assertThat(progress.migrated()).isEqualTo(1);
+        assertThat(fileRepository.findById(removed.getId())).isEmpty();
+        assertThat(directory.resolve("removed")).doesNotExist();
+        assertThat(fileLayout.resolve("removed")).doesNotExist();
+        assertThat(Path.of(fileRepository.findById(kept.getId()).orElseThrow().getPath()))
+                .isEqualTo(fileLayout.resolve("kept"))
+                .exists();
+    }
+
+    @Test
+    void whenOriginalMigratedThenVariantsMoveWithIt() throws Exception {
+        var fileRepository = new MemoryFileRepository();
+        var file = saveLegacy(fileRepository, "avatar");
+        Files.writeString(directory.resolve("avatar.64.jpg"), "small");
+        Files.writeString(directory.resolve("avatar.256.orig"), "");
+
+        migrate(fileRepository, 10);
+
+        var target = fileLayout.resolve("avatar").toString();
+        assertThat(fileRepository.findById(file.getId()).orElseThrow().getPath()).isEqualTo(target);
+        assertThat(thumbnailGenerator.findVariants(target))
+                .containsExactly(target + ".64.jpg", target + ".256.orig");
+        assertThat(Files.readString(Path.of(target + ".64.jpg"))).isEqualTo("small");
+        assertThat(thumbnailGenerator.findVariant(target, 256)).contains(target);
+        assertThat(directory.resolve("avatar.64.jpg")).doesNotExist();
+        assertThat(directory.resolve("avatar.256.orig")).doesNotExist();
+    }
+}
@@ -0,0 +1,61 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.model.City;
+import ru.job4j.dreamjob.repository.CityRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SimpleCityServiceTest {
+    private CityRepository cityRepository;
+
+    private SimpleCityService cityService;
+
+    private final City moscow = new City(1, "Москва");
+
+    private final City kazan = new City(2, "Казань");
+
+    @BeforeEach
+    public void initService() {
+        cityRepository = mock(CityRepository.class);
+        when(cityRepository.findAll()).thenReturn(List.of(moscow, kazan));
+        cityService = new SimpleCityService(cityRepository, 0);
+    }
+
+    @AfterEach
+    public void shutdownService() {
+        cityService.shutdown();
+    }
+
+    @Test
+    public void whenFindManyTimesThenCitiesLoadedOnceAndSortedByName() {
+        assertThat(cityService.findAll()).containsExactly(kazan, moscow);
+        assertThat(cityService.findById(1)).contains(moscow);
+        assertThat(cityService.findById(3)).isEmpty();
+        assertThat(cityService.findAll()).containsExactly(kazan, moscow);
+
+        verify(cityRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void whenRefreshThenNewCitiesServed() {
+        var omsk = new City(3, "Омск");
+        when(cityRepository.findAll()).thenReturn(List.of(moscow, kazan, omsk));
+
+        assertThat(cityService.refresh()).containsExactly(kazan, moscow, omsk);
+        assertThat(cityService.findById(3)).contains(omsk);
+    }
+
+    @Test
+    public void whenRefreshFailsThenPreviousCitiesKept() {
+        when(cityRepository.findAll()).thenThrow(new RuntimeException("connection refused"));
+
+        assertThatThrownBy(cityService::refresh).isInstanceOf(RuntimeException.class);
+        assertThat(cityService.findAll()).containsExactly(kazan, moscow);
+    }
+}
@@ -0,0 +1,67 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.repository.MemoryFileRepository;
+import ru.job4j.dreamjob.storage.FileLayout;
+import ru.job4j.dreamjob.storage.LocalFileStorage;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SimpleFileServiceTest {
+    @TempDir
+    private Path directory;
+
+    private ThumbnailGenerator thumbnailGenerator;
+
+    private FileCache fileCache;
+
+    private SimpleFileService fileService;
+
+    @BeforeEach
+    void init() {
+        var fileStorage = new LocalFileStorage(new FileLayout(directory.toString()));
+        thumbnailGenerator = new ThumbnailGenerator(fileStorage, new int[]{64, 256}, 1, 1, 50_000_000);
+        fileCache = new FileCache(1024 * 1024, 1024 * 1024, "lru");
+        fileService = new SimpleFileService(new MemoryFileRepository(), fileStorage, new FileLayout(directory.toString()),
+                true, thumbnailGenerator, fileCache);
+    }
+
+    @AfterEach
+    void shutdown() {
+        thumbnailGenerator.shutdown();
+    }
+
+    private static byte[] image(int width, int height) throws IOException {
+        var output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", output);
+        return output.toByteArray();
+    }
+
+    @Test
+    void whenSizesResolveToSameVariantThenCachedOnce() throws Exception {
+        var file = fileService.save(new FileDto("photo.jpg", image(1000, 500)));
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thumbnailGenerator.findVariant(file.getPath(), 256).isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        var first = fileService.getFileById(file.getId(), 100).orElseThrow();
+        var second = fileService.getFileById(file.getId(), 200).orElseThrow();
+
+        assertThat(second.getChecksum()).isEqualTo(first.getChecksum()).endsWith("-256-jpg");
+        assertThat(fileCache.stats().hits()).isEqualTo(1);
+        assertThat(fileCache.stats().size()).isEqualTo(1);
+        assertThat(fileCache.get(file.getId(), 256)).isPresent();
+    }
+}
@@ -0,0 +1,116 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.job4j.dreamjob.storage.FileLayout;
+import ru.job4j.dreamjob.storage.LocalFileStorage;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ThumbnailGeneratorTest {
+    @TempDir
+    private Path directory;
+
+    private LocalFileStorage fileStorage;
+
+    private ThumbnailGenerator thumbnailGenerator;
+
+    @BeforeEach
+    void init() {
+        fileStorage = new LocalFileStorage(new FileLayout(directory.toString()));
+        thumbnailGenerator = new ThumbnailGenerator(fileStorage, new int[]{256, 64, 1024}, 1, 1, 50_000_000);
+    }
+
+    @AfterEach
+    void shutdown() {
+        thumbnailGenerator.shutdown();
+    }
+
+    private String saveImage(String key, int width, int height) throws IOException {
+        var output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", output);
+        var location = fileStorage.locate(key, output.size());
+        fileStorage.write(location, new ByteArrayInputStream(output.toByteArray()));
+        return location;
+    }
+
+    private int longerSide(String location) throws IOException {
+        try (var input = fileStorage.read(location).getInputStream()) {
+            var image = ImageIO.read(input);
+            return Math.max(image.getWidth(), image.getHeight());
+        }
+    }
+
+    @Test
+    void whenSizeRequestedThenSmallestVariantNotSmallerIsChosen() throws IOException {
+        var original = saveImage("large", 2000, 1000);
+        thumbnailGenerator.generate(original);
+
+        assertThat(longerSide(thumbnailGenerator.findVariant(original, 100).orElseThrow())).isEqualTo(256);
+        assertThat(longerSide(thumbnailGenerator.findVariant(original, 64).orElseThrow())).isEqualTo(64);
+        assertThat(longerSide(thumbnailGenerator.findVariant(original, 5000).orElseThrow())).isEqualTo(1024);
+    }
+
+    @Test
+    void whenVariantsNotGeneratedThenNothingFound() throws IOException {
+        var original = saveImage("pending", 2000, 1000);
+
+        assertThat(thumbnailGenerator.findVariant(original, 256)).isEmpty();
+    }
+
+    @Test
+    void whenImageNotLargerThanSizeThenOriginalServedAsVariant() throws IOException {
+        var original = saveImage("small", 200, 100);
+        thumbnailGenerator.generate(original);
+
+        assertThat(thumbnailGenerator.findVariant(original, 256)).contains(original);
+        assertThat(thumbnailGenerator.findVariant(original, 1024)).contains(original);
+        assertThat(longerSide(thumbnailGenerator.findVariant(original, 64).orElseThrow())).isEqualTo(64);
+    }
+
+    @Test
+    void whenVariantsDeletedThenCopiesAndMarkersRemovedButOriginalKept() throws IOException {
+        var original = saveImage("deleted", 500, 100);
+        thumbnailGenerator.generate(original);
+        assertThat(thumbnailGenerator.findVariants(original)).hasSize(3);
+
+        thumbnailGenerator.deleteVariants(original);
+
+        assertThat(thumbnailGenerator.findVariants(original)).isEmpty();
+        assertThat(thumbnailGenerator.findVariant(original, 1024)).isEmpty();
+        assertThat(fileStorage.exists(original)).isTrue();
+    }
+
+    @Test
+    void whenImageMuchLargerThanVariantsThenDecodedSubsampledButVariantsFullSize() throws IOException {
+        var original = saveImage("wide", 5000, 100);
+        thumbnailGenerator.generate(original);
+
+        assertThat(longerSide(thumbnailGenerator.findVariant(original, 1024).orElseThrow())).isEqualTo(1024);
+        assertThat(longerSide(thumbnailGenerator.findVariant(original, 64).orElseThrow())).isEqualTo(64);
+    }
+
+    @Test
+    void whenImageOverPixelLimitThenNotDecodedAndOriginalServed() throws IOException {
+        var limited = new ThumbnailGenerator(fileStorage, new int[]{64, 256}, 1, 1, 100_000);
+        try {
+            var original = saveImage("huge", 1000, 500);
+
+            limited.generate(original);
+
+            assertThat(limited.findVariant(original, 64)).contains(original);
+            assertThat(limited.findVariant(original, 256)).contains(original);
+        } finally {
+            limited.shutdown();
+        }
+    }
+}
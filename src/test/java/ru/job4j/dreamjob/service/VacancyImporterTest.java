@@ -0,0 +1,131 @@
+package ru.job4j.dreamjob.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.dto.ImportReport.RowError;
+import ru.job4j.dreamjob.model.City;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class VacancyImporterTest {
+    private VacancyRepository vacancyRepository;
+
+    private VacancyImporter vacancyImporter;
+
+    private final List<Vacancy> saved = new ArrayList<>();
+
+    @BeforeEach
+    public void initImporter() {
+        vacancyRepository = mock(VacancyRepository.class);
+        when(vacancyRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Vacancy> chunk = invocation.getArgument(0);
+            saved.addAll(chunk);
+            return chunk;
+        });
+        var cityService = mock(CityService.class);
+        when(cityService.findById(anyInt())).thenReturn(Optional.empty());
+        when(cityService.findById(1)).thenReturn(Optional.of(new City(1, "Москва")));
+        vacancyImporter = new VacancyImporter(vacancyRepository, cityService, new ObjectMapper(), 2);
+    }
+
+    private InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void whenCsvThenQuotedFieldsParsedAndSavedInChunks() throws IOException {
+        var csv = String.join("\n",
+                "title,description,city_id,visible,creation_date",
+                "Java,\"Spring, Hibernate\",1,false,2024-01-02T10:00",
+                "\"Ведущий \"\"Java\"\"\",\"многострочное",
+                "описание\",1,,",
+                "Kotlin,,1,true,");
+
+        var report = vacancyImporter.importCsv(input(csv));
+
+        assertThat(report.imported()).isEqualTo(3);
+        assertThat(report.errors()).isEmpty();
+        verify(vacancyRepository, times(2)).saveAll(any());
+        assertThat(saved).extracting(Vacancy::getTitle).containsExactly("Java", "Ведущий \"Java\"", "Kotlin");
+        assertThat(saved.get(0).getDescription()).isEqualTo("Spring, Hibernate");
+        assertThat(saved.get(0).getVisible()).isFalse();
+        assertThat(saved.get(0).getCreationDate()).isEqualTo(LocalDateTime.of(2024, 1, 2, 10, 0));
+        assertThat(saved.get(1).getDescription()).isEqualTo("многострочное\nописание");
+        assertThat(saved.get(1).getVisible()).isTrue();
+    }
+
+    @Test
+    public void whenRowsInvalidThenRejectedWithRowNumbersAndOthersSaved() throws IOException {
+        var csv = """
+                title,city_id
+                ,1
+                Java,2
+                Kotlin,x
+                Scala
+                Go,1
+                """;
+
+        var report = vacancyImporter.importCsv(input(csv));
+
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.failed()).isEqualTo(4);
+        assertThat(report.errors()).extracting(RowError::row).containsExactly(1, 2, 3, 4);
+        assertThat(report.errors().get(1).message()).contains("Неизвестный город");
+        assertThat(saved).extracting(Vacancy::getTitle).containsExactly("Go");
+    }
+
+    @Test
+    public void whenJsonLinesThenObjectsSavedAndBrokenLinesReported() throws IOException {
+        var lines = String.join("\n",
+                "{\"title\": \"Java\", \"city_id\": 1, \"visible\": false}",
+                "",
+                "{\"title\": \"Kotlin\"",
+                "[1, 2]",
+                "{\"title\": \"Go\", \"city_id\": \"1\", \"description\": null}");
+
+        var report = vacancyImporter.importJsonLines(input(lines));
+
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.errors()).extracting(RowError::row).containsExactly(3, 4);
+        assertThat(saved).extracting(Vacancy::getTitle).containsExactly("Java", "Go");
+        assertThat(saved.get(0).getVisible()).isFalse();
+        assertThat(saved.get(1).getDescription()).isEmpty();
+    }
+
+    @Test
+    public void whenChunkNotSavedThenRowsSavedOneByOneAndOnlyFailingRowReported() throws IOException {
+        doThrow(new RuntimeException("duplicate key")).doReturn(List.of()).when(vacancyRepository).saveAll(any());
+        when(vacancyRepository.save(any())).thenAnswer(invocation -> {
+            Vacancy vacancy = invocation.getArgument(0);
+            if ("B".equals(vacancy.getTitle())) {
+                throw new RuntimeException("duplicate key value violates unique constraint \"vacancies_pkey\"");
+            }
+            saved.add(vacancy);
+            return vacancy;
+        });
+
+        var report = vacancyImporter.importCsv(input("title,city_id\nA,1\nB,1\nC,1\n"));
+
+        verify(vacancyRepository, times(2)).saveAll(any());
+        verify(vacancyRepository, times(2)).save(any());
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(1);
+        assertThat(report.errors()).extracting(RowError::row).containsExactly(2);
+        assertThat(report.errors().get(0).message()).doesNotContain("duplicate key", "vacancies_pkey");
+        assertThat(saved).extracting(Vacancy::getTitle).containsExactly("A");
+    }
+}
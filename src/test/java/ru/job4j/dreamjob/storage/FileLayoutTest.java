@@ -0,0 +1,54 @@
+package ru.job4j.dreamjob.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FileLayoutTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void whenResolveThenShardedByFirstCharacters() {
+        var fileLayout = new FileLayout(directory.toString());
+
+        assertThat(fileLayout.resolve("AbCdef")).isEqualTo(directory.resolve("ab/cd/AbCdef"));
+        assertThat(fileLayout.resolve("a.b")).isEqualTo(directory.resolve("a_/b_/a.b"));
+    }
+
+    @Test
+    public void whenFileInFlatLayoutThenRelocatedPathFound() {
+        var fileLayout = new FileLayout(directory.toString());
+
+        assertThat(fileLayout.findRelocated(directory.resolve("abcdef").toString()))
+                .contains(directory.resolve("ab/cd/abcdef"));
+        assertThat(fileLayout.findRelocated(directory.resolve("ab/cd/abcdef").toString())).isEmpty();
+        assertThat(fileLayout.findRelocated("pack:abcdef")).isEmpty();
+    }
+
+    @Test
+    public void whenLinkedThenContentAvailableByBothPaths() throws IOException {
+        var fileLayout = new FileLayout(directory.toString());
+        var source = Files.writeString(directory.resolve("abcdef"), "content");
+        var target = fileLayout.resolve("abcdef");
+
+        fileLayout.link(source, target);
+        fileLayout.link(source, target);
+
+        assertThat(Files.readString(target)).isEqualTo("content");
+        assertThat(Files.readString(source)).isEqualTo("content");
+    }
+
+    @Test
+    public void whenSourceMissingThenLinkFails() {
+        var fileLayout = new FileLayout(directory.toString());
+
+        assertThatThrownBy(() -> fileLayout.link(directory.resolve("missing"), fileLayout.resolve("missing")))
+                .isInstanceOf(IOException.class);
+    }
+}
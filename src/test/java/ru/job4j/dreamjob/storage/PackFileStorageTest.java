@@ -0,0 +1,138 @@
+package ru.job4j.dreamjob.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PackFileStorageTest {
+    @TempDir
+    private Path directory;
+
+    private PackFileStorage open(long segmentBytes) {
+        return new PackFileStorage(directory, segmentBytes, 1024, 0.5, 0);
+    }
+
+    private void write(PackFileStorage storage, String location, String content) throws IOException {
+        storage.write(location, new ByteArrayInputStream(content.getBytes()));
+    }
+
+    private String read(PackFileStorage storage, String location) throws IOException {
+        return new String(storage.read(location).getContentAsByteArray());
+    }
+
+    @Test
+    public void whenWriteThenReadSameContent() throws IOException {
+        try (var storage = open(4096)) {
+            var location = storage.locate("avatar", 5);
+            write(storage, location, "hello");
+
+            var resource = storage.read(location);
+
+            assertThat(storage.owns(location)).isTrue();
+            assertThat(storage.owns("files/ab/cd/avatar")).isFalse();
+            assertThat(resource.contentLength()).isEqualTo(5);
+            assertThat(resource.getInputStream().skip(1)).isEqualTo(1);
+            assertThat(read(storage, location)).isEqualTo("hello");
+        }
+    }
+
+    @Test
+    public void whenReopenThenIndexRestoredAndDeletesKept() throws IOException {
+        try (var storage = open(4096)) {
+            write(storage, "pack:first", "one");
+            write(storage, "pack:second", "two");
+            write(storage, "pack:first", "three");
+            storage.delete("pack:second");
+        }
+
+        try (var storage = open(4096)) {
+            assertThat(read(storage, "pack:first")).isEqualTo("three");
+            assertThat(storage.exists("pack:second")).isFalse();
+        }
+    }
+
+    @Test
+    public void whenContentTooLargeThenWriteRejected() throws IOException {
+        try (var storage = open(4096)) {
+            assertThatThrownBy(() -> storage.write("pack:big", new ByteArrayInputStream(new byte[1025])))
+                    .isInstanceOf(IOException.class);
+            assertThat(storage.exists("pack:big")).isFalse();
+        }
+    }
+
+    @Test
+    public void whenMostlyDeletedSegmentCompactedThenLiveContentMovedAndSegmentRemoved() throws IOException {
+        try (var storage = open(128)) {
+            write(storage, "pack:live", "x".repeat(40));
+            write(storage, "pack:dead", "y".repeat(40));
+            write(storage, "pack:other", "z".repeat(40));
+            storage.delete("pack:dead");
+
+            storage.compact();
+
+            assertThat(directory.resolve("00000001.pack")).doesNotExist();
+            assertThat(read(storage, "pack:live")).isEqualTo("x".repeat(40));
+            assertThat(read(storage, "pack:other")).isEqualTo("z".repeat(40));
+        }
+        try (var storage = open(128)) {
+            assertThat(read(storage, "pack:live")).isEqualTo("x".repeat(40));
+            assertThat(storage.exists("pack:dead")).isFalse();
+        }
+    }
+
+    @Test
+    public void whenOverwrittenThenDeletedAndCompactedThenDeleteSurvivesReopen() throws IOException {
+        var content = "a".repeat(20);
+        try (var storage = open(128)) {
+            for (var key : new String[]{"k", "f", "e", "k", "g", "h"}) {
+                write(storage, "pack:" + key, content);
+            }
+            storage.delete("pack:k");
+            storage.delete("pack:g");
+            write(storage, "pack:i", content);
+            write(storage, "pack:j", content);
+            storage.delete("pack:i");
+            storage.delete("pack:j");
+
+            /* сегмент с последней версией k и сегмент с надгробием уплотнены, первая версия k осталась в сегменте 1 */
+            storage.compact();
+
+            assertThat(directory.resolve("00000001.pack")).exists();
+            assertThat(directory.resolve("00000002.pack")).doesNotExist();
+            assertThat(directory.resolve("00000003.pack")).doesNotExist();
+        }
+        try (var storage = open(128)) {
+            assertThat(storage.exists("pack:k")).isFalse();
+            assertThat(read(storage, "pack:f")).isEqualTo(content);
+            assertThat(read(storage, "pack:h")).isEqualTo(content);
+        }
+    }
+
+    @Test
+    public void whenLastRecordTornThenItIsDroppedOnOpen() throws IOException {
+        try (var storage = open(4096)) {
+            write(storage, "pack:kept", "kept");
+            write(storage, "pack:torn", "torn");
+        }
+        var segment = directory.resolve("00000001.pack");
+        try (var channel = Files.newByteChannel(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 2);
+        }
+
+        try (var storage = open(4096)) {
+            assertThat(read(storage, "pack:kept")).isEqualTo("kept");
+            assertThat(storage.exists("pack:torn")).isFalse();
+            write(storage, "pack:next", "next");
+        }
+        try (var storage = open(4096)) {
+            assertThat(read(storage, "pack:next")).isEqualTo("next");
+        }
+    }
+}
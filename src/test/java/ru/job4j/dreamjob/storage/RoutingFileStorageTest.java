@@ -0,0 +1,75 @@
+package ru.job4j.dreamjob.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RoutingFileStorageTest {
+    @TempDir
+    private Path directory;
+
+    private RoutingFileStorage open() {
+        var localFileStorage = new LocalFileStorage(new FileLayout(directory.resolve("files").toString()));
+        var packFileStorage = new PackFileStorage(directory.resolve("pack"), 4096, 8, 0.5, 0);
+        return new RoutingFileStorage(localFileStorage, packFileStorage, 8);
+    }
+
+    private void write(FileStorage storage, String location, String content) throws IOException {
+        storage.write(location, new ByteArrayInputStream(content.getBytes()));
+    }
+
+    private String read(FileStorage storage, String location) throws IOException {
+        return new String(storage.read(location).getContentAsByteArray());
+    }
+
+    @Test
+    public void whenSmallContentThenStoredInPack() throws IOException {
+        try (var storage = open()) {
+            var location = storage.locate("avatar", 5);
+            write(storage, location, "small");
+
+            assertThat(location).startsWith(PackFileStorage.PREFIX);
+            assertThat(read(storage, location)).isEqualTo("small");
+            assertThat(directory.resolve("files").toFile().list()).isEmpty();
+        }
+    }
+
+    @Test
+    public void whenVariantOfPackedOriginalIsLargeThenStoredOnDiskUnderSameLocation() throws IOException {
+        try (var storage = open()) {
+            var original = storage.locate("avatar", 5);
+            write(storage, original, "small");
+            var variant = original + ".1024.png";
+
+            write(storage, variant, "much larger than a blob");
+
+            assertThat(storage.exists(variant)).isTrue();
+            assertThat(read(storage, variant)).isEqualTo("much larger than a blob");
+            assertThat(read(storage, original)).isEqualTo("small");
+
+            storage.delete(variant);
+
+            assertThat(storage.exists(variant)).isFalse();
+            assertThat(storage.exists(original)).isTrue();
+        }
+    }
+
+    @Test
+    public void whenRewrittenSmallerThenOverflowCopyRemoved() throws IOException {
+        try (var storage = open()) {
+            var location = storage.locate("avatar", 5) + ".64.png";
+            write(storage, location, "much larger than a blob");
+
+            write(storage, location, "tiny");
+
+            assertThat(read(storage, location)).isEqualTo("tiny");
+            storage.delete(location);
+            assertThat(storage.exists(location)).isFalse();
+        }
+    }
+}